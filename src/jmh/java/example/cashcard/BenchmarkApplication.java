@@ -0,0 +1,56 @@
+package example.cashcard;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts the application against a fresh in-memory H2 database and seeds it
+ * with {@code cards} cards for the benchmark owner plus the same number spread
+ * over other owners, so owner-scoped queries have to be selective.
+ */
+final class BenchmarkApplication {
+
+    static final String OWNER = "harlik";
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(int cards, String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringCashcardApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(
+                        "server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+        seed(context.getBean(JdbcTemplate.class), cards);
+        return context;
+    }
+
+    static long firstId(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT MIN(ID) FROM cash_card WHERE OWNER = ?", Long.class, OWNER);
+    }
+
+    static List<Long> ownerIds(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class)
+                .queryForList("SELECT ID FROM cash_card WHERE OWNER = ? ORDER BY ID", Long.class, OWNER);
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int cards) {
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(cards * 2);
+        for (int i = 0; i < cards; i++) {
+            rows.add(new Object[]{random.nextInt(100_000), OWNER});
+            rows.add(new Object[]{random.nextInt(100_000), "owner-" + (i % 100)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cash_card (AMOUNT, OWNER) VALUES (?, ?)", rows);
+    }
+}
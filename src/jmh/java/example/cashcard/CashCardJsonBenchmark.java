@@ -0,0 +1,109 @@
+package example.cashcard;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON cost of the card representation. The {@code legacy*} benchmarks keep the
+ * former {@code Double} amount as a baseline for the cents codec; run with
+ * {@code -Pjmh.includes=CashCardJsonBenchmark -Pjmh.args="-prof gc"} and compare
+ * {@code gc.alloc.rate.norm} (bytes per operation).
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CashCardJsonBenchmark {
+
+    @Param({"20", "1000"})
+    int listSize;
+
+    private ObjectWriter cashCardWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader cashCardReader;
+    private CashCard cashCard;
+    private List<CashCard> cashCards;
+    private String cashCardJson;
+    private ObjectWriter legacyWriter;
+    private ObjectWriter legacyListWriter;
+    private ObjectReader legacyReader;
+    private LegacyCashCard legacyCashCard;
+    private List<LegacyCashCard> legacyCashCards;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cashCardWriter = objectMapper.writerFor(CashCard.class);
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, CashCard.class));
+        cashCardReader = objectMapper.readerFor(CashCard.class);
+        cashCard = new CashCard(99L, 12345L, "harlik");
+        cashCards = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            cashCards.add(new CashCard(100L + i, i * 101L, "harlik"));
+        }
+        cashCardJson = cashCardWriter.writeValueAsString(cashCard);
+        legacyWriter = objectMapper.writerFor(LegacyCashCard.class);
+        legacyReader = objectMapper.readerFor(LegacyCashCard.class);
+        legacyListWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, LegacyCashCard.class));
+        legacyCashCard = new LegacyCashCard(99L, 123.45, "harlik");
+        legacyCashCards = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            legacyCashCards.add(new LegacyCashCard(100L + i, i * 1.01, "harlik"));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeCashCard() throws JsonProcessingException {
+        return cashCardWriter.writeValueAsBytes(cashCard);
+    }
+
+    @Benchmark
+    public byte[] serializeCashCardList() throws JsonProcessingException {
+        return listWriter.writeValueAsBytes(cashCards);
+    }
+
+    @Benchmark
+    public CashCard deserializeCashCard() throws JsonProcessingException {
+        return cashCardReader.readValue(cashCardJson);
+    }
+
+    @Benchmark
+    public byte[] legacySerializeCashCard() throws JsonProcessingException {
+        return legacyWriter.writeValueAsBytes(legacyCashCard);
+    }
+
+    @Benchmark
+    public byte[] legacySerializeCashCardList() throws JsonProcessingException {
+        return legacyListWriter.writeValueAsBytes(legacyCashCards);
+    }
+
+    @Benchmark
+    public LegacyCashCard legacyDeserializeCashCard() throws JsonProcessingException {
+        return legacyReader.readValue(cashCardJson);
+    }
+
+    public record LegacyCashCard(Long id, Double amount, String owner) {
+    }
+}
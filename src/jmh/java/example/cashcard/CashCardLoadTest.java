@@ -0,0 +1,138 @@
+package example.cashcard;
+
+import org.HdrHistogram.Histogram;
+import org.h2.tools.Server;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Closed-loop load test: {@code clients} concurrent callers each issue requests
+ * back to back for a fixed time, once with Tomcat on platform threads and once
+ * on virtual threads, and the two runs are reported side by side. Arguments:
+ * clients, seconds, cards.
+ *
+ * <p>The point of the comparison is request threads parked in blocking I/O, so
+ * every request has to reach the database: the card cache is switched off, the
+ * database is an H2 TCP server reached over a socket, and the callers cycle
+ * through a listing page, a single card and a credit (a write transaction).
+ * Only the credential cache stays on, as BCrypt would otherwise dominate.
+ */
+public final class CashCardLoadTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int cards = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %8s %12s %10s %10s %10s %8s",
+                "mode", "clients", "requests/s", "p50 ms", "p99 ms", "max ms", "errors"));
+        report.add(run("platform", clients, seconds, cards, false));
+        if (Runtime.version().feature() >= 21) {
+            report.add(run("virtual", clients, seconds, cards, true));
+        } else {
+            report.add("virtual    skipped: needs Java 21+, running on " + Runtime.version());
+        }
+        report.forEach(System.out::println);
+    }
+
+    private static String run(String mode, int clients, int seconds, int cards, boolean virtual)
+            throws Exception {
+        Server database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start(cards,
+                "spring.datasource.url=jdbc:h2:tcp://localhost:" + database.getPort() + "/mem:load-" + mode,
+                "spring.sql.init.mode=always",
+                "cashcard.cache.maximum-size=0",
+                "cashcard.threads.virtual.enabled=" + virtual,
+                "server.tomcat.max-connections=" + Math.max(8192, clients * 2),
+                "server.tomcat.accept-count=" + clients)) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<Long> ids = BenchmarkApplication.ownerIds(context);
+            int pages = Math.max(1, ids.size() / PAGE_SIZE);
+            IntFunction<HttpRequest> requests = n -> switch (n % 3) {
+                case 0 -> authorized(base + "/cashcards?size=" + PAGE_SIZE + "&page=" + (n / 3) % pages).build();
+                case 1 -> authorized(base + "/cashcards/" + ids.get(n % ids.size())).build();
+                default -> authorized(base + "/cashcards/" + ids.get(n % ids.size()) + "/credit")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"amount\": 0.01}"))
+                        .build();
+            };
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .build();
+
+            // Warm up the JIT, the connection pool and the credential cache before measuring.
+            drive(httpClient, requests, Math.min(clients, 50), 5, new Histogram(3), new AtomicLong());
+
+            Histogram latencies = new Histogram(TimeUnit.SECONDS.toNanos(60), 3);
+            AtomicLong errors = new AtomicLong();
+            long completed = drive(httpClient, requests, clients, seconds, latencies, errors);
+            return String.format("%-10s %8d %12.0f %10.2f %10.2f %10.2f %8d",
+                    mode, clients, completed / (double) seconds,
+                    latencies.getValueAtPercentile(50) / 1e6,
+                    latencies.getValueAtPercentile(99) / 1e6,
+                    latencies.getMaxValue() / 1e6,
+                    errors.get());
+        } finally {
+            database.stop();
+        }
+    }
+
+    private static HttpRequest.Builder authorized(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((BenchmarkApplication.OWNER + ":abc123").getBytes(StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    private static long drive(HttpClient httpClient, IntFunction<HttpRequest> requests, int clients, int seconds,
+                              Histogram latencies, AtomicLong errors) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(clients);
+        List<Histogram> perClient = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            Histogram histogram = new Histogram(latencies.getHighestTrackableValue(), 3);
+            perClient.add(histogram);
+            int offset = i;
+            Thread client = new Thread(() -> {
+                try {
+                    for (int n = offset; System.nanoTime() < deadline; n += clients) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(requests.apply(n),
+                                    HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        histogram.recordValue(Math.min(System.nanoTime() - start, histogram.getHighestTrackableValue()));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        perClient.forEach(latencies::add);
+        return latencies.getTotalCount();
+    }
+}
@@ -0,0 +1,68 @@
+package example.cashcard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CashCardRepositoryBenchmark {
+
+    @Param({"1000", "100000"})
+    int cards;
+
+    private ConfigurableApplicationContext context;
+    private CashCardRepository cashCardRepository;
+    private long id;
+    private PageRequest firstPage;
+    private PageRequest deepPage;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(cards);
+        cashCardRepository = context.getBean(CashCardRepository.class);
+        id = BenchmarkApplication.firstId(context);
+        Sort byAmount = Sort.by(Sort.Direction.DESC, "amount");
+        firstPage = PageRequest.of(0, 20, byAmount);
+        deepPage = PageRequest.of(cards / 20 - 1, 20, byAmount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CashCard findByIdAndOwner() {
+        return cashCardRepository.findByIdAndOwner(id, BenchmarkApplication.OWNER);
+    }
+
+    @Benchmark
+    public Page<CashCard> findByOwnerFirstPage() {
+        return cashCardRepository.findByOwner(BenchmarkApplication.OWNER, firstPage);
+    }
+
+    @Benchmark
+    public Page<CashCard> findByOwnerLastPage() {
+        return cashCardRepository.findByOwner(BenchmarkApplication.OWNER, deepPage);
+    }
+}
@@ -0,0 +1,154 @@
+package example.cashcard;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application as a separate process, repeatedly in each mode, and
+ * measures how long it takes until it reports being started and until it
+ * answers an authenticated GET /cashcards, the moment a new instance becomes
+ * useful to the autoscaler. Arguments: the jar and the JVM and AOT mode CDS
+ * archives written by the {@code cdsArchive} task, the native executable
+ * (skipped when absent), runs.
+ */
+public final class StartupBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        File jar = new File(args[0]);
+        File jvmArchive = new File(args[1]);
+        File aotArchive = new File(args[2]);
+        File nativeImage = new File(args[3]);
+        int runs = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %6s %14s %14s %14s", "mode", "runs", "started ms", "first req ms", "best ms"));
+        report.add(run("jvm", runs, List.of(java, "-jar", jar.getPath())));
+        report.add(run("jvm+cds", runs, List.of(java, "-XX:SharedArchiveFile=" + jvmArchive, "-jar", jar.getPath())));
+        report.add(run("aot", runs, List.of(java, "-Dspring.aot.enabled=true", "-jar", jar.getPath())));
+        report.add(run("aot+cds", runs, List.of(java, "-XX:SharedArchiveFile=" + aotArchive,
+                "-Dspring.aot.enabled=true", "-jar", jar.getPath())));
+        if (nativeImage.canExecute()) {
+            report.add(run("native", runs, List.of(nativeImage.getPath())));
+        } else {
+            report.add("native     skipped: run nativeCompile with GraalVM first");
+        }
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * Reports the medians over all runs of the time until the startup log line
+     * and until the first successful response, and the best of the latter.
+     */
+    private static String run(String mode, int runs, List<String> command) throws Exception {
+        long[] started = new long[runs];
+        long[] firstRequest = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] result = startOnce(command);
+            started[i] = result[0];
+            firstRequest[i] = result[1];
+        }
+        return String.format("%-10s %6d %14d %14d %14d", mode, runs,
+                median(started), median(firstRequest), min(firstRequest));
+    }
+
+    private static long[] startOnce(List<String> command) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cashcards"))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString("harlik:abc123".getBytes(StandardCharsets.UTF_8)))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(withPort).redirectErrorStream(true).start();
+        try {
+            CompletableFuture<Long> started = new CompletableFuture<>();
+            Thread output = new Thread(() -> watchOutput(process, start, started));
+            output.setDaemon(true);
+            output.start();
+
+            long deadline = start + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue()
+                            + ": " + String.join(" ", withPort));
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long firstRequest = System.nanoTime() - start;
+                        return new long[]{
+                                TimeUnit.NANOSECONDS.toMillis(started.get(10, TimeUnit.SECONDS)),
+                                TimeUnit.NANOSECONDS.toMillis(firstRequest)};
+                    }
+                } catch (ConnectException e) {
+                    // Not listening yet.
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No response within " + TIMEOUT + ": " + String.join(" ", withPort));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static void watchOutput(Process process, long start, CompletableFuture<Long> started) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = STARTED.matcher(line);
+                if (!started.isDone() && matcher.find()) {
+                    started.complete(System.nanoTime() - start);
+                }
+            }
+        } catch (IOException e) {
+            started.completeExceptionally(e);
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long min(long[] values) {
+        long min = Long.MAX_VALUE;
+        for (long value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+}
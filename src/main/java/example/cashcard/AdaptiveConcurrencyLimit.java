@@ -0,0 +1,80 @@
+package example.cashcard;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of requests in flight at a limit found by additive increase,
+ * multiplicative decrease (AIMD): every request that completes within
+ * {@code latencyTarget} while the limit is actually being used raises the limit
+ * by {@code 1/limit}, about one per round of requests; a slower request cuts it
+ * by {@code backoffRatio}. Under overload the limit settles where latency just
+ * meets the target, and requests beyond it are refused rather than queued.
+ * Lock-free; the limit is kept as the bits of a double.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Claims a slot; {@code false} if the limit is reached. A claimed slot must
+     * be returned through {@link #release(long, boolean)}.
+     */
+    boolean tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a slot, adjusting the limit by how long its request took.
+     * {@code dropped} marks a request that failed for lack of capacity, such as
+     * a timed out connection, regardless of its latency.
+     */
+    void release(long latencyNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (dropped || latencyNanos > latencyTargetNanos) {
+            limit.updateAndGet(bits -> Double.doubleToLongBits(
+                    Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio)));
+        } else {
+            limit.updateAndGet(bits -> {
+                double current = Double.longBitsToDouble(bits);
+                // Fast responses say nothing about capacity while most of the limit sits unused.
+                return inFlightBefore * 2 < current ? bits
+                        : Double.doubleToLongBits(Math.min(maxLimit, current + 1 / current));
+            });
+        }
+    }
+
+    int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,50 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Puts an {@link AdmissionControlFilter} in front of authentication; see
+ * {@link SecurityConfig}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cashcard.admission", name = "enabled", havingValue = "true")
+public class AdmissionControlConfig {
+
+    @Bean
+    AdmissionControlFilter admissionControlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${cashcard.admission.rate}") double rate,
+            @Value("${cashcard.admission.burst}") int burst,
+            @Value("${cashcard.admission.callers.maximum-size}") long maximumCallers,
+            @Value("${cashcard.admission.callers.idle-timeout}") Duration idleTimeout,
+            @Value("${cashcard.admission.concurrency.initial-limit}") int initialLimit,
+            @Value("${cashcard.admission.concurrency.min-limit}") int minLimit,
+            @Value("${cashcard.admission.concurrency.max-limit}") int maxLimit,
+            @Value("${cashcard.admission.concurrency.latency-target}") Duration latencyTarget,
+            @Value("${cashcard.admission.concurrency.backoff-ratio}") double backoffRatio) {
+        return new AdmissionControlFilter(
+                new TokenBuckets(rate, burst, maximumCallers, idleTimeout, System::nanoTime),
+                new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, latencyTarget, backoffRatio),
+                meterRegistry);
+    }
+
+    /**
+     * The filter belongs in the security chain only, not also in the servlet
+     * container's chain where Spring Boot would register it on its own.
+     */
+    @Bean
+    FilterRegistrationBean<AdmissionControlFilter> admissionControlFilterRegistration(AdmissionControlFilter filter) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
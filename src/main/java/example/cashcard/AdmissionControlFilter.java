@@ -0,0 +1,91 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds load on {@code /cashcards/**} before any password is checked or
+ * connection taken. Each caller draws from its own {@link TokenBuckets bucket}
+ * and gets {@code 429} once it is empty; every admitted request also needs a
+ * slot under the {@link AdaptiveConcurrencyLimit}, or gets {@code 503}. Both
+ * carry {@code Retry-After}, and neither waits.
+ *
+ * <p>Runs ahead of authentication, so the caller is the client address: a
+ * username in the Basic credentials is not verified yet, and charging it would
+ * let anyone spend a victim's bucket. Behind a proxy, set
+ * {@code server.forward-headers-strategy} so the address is the client's.
+ */
+class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final TokenBuckets tokenBuckets;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    AdmissionControlFilter(TokenBuckets tokenBuckets, AdaptiveConcurrencyLimit concurrencyLimit,
+                           MeterRegistry meterRegistry) {
+        this.tokenBuckets = tokenBuckets;
+        this.concurrencyLimit = concurrencyLimit;
+        this.rateLimited = rejected(meterRegistry, "rate-limited");
+        this.overloaded = rejected(meterRegistry, "overloaded");
+        Gauge.builder("cashcard.admission.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive limit on requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("cashcard.admission.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Admitted requests in flight")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("cashcard.admission.rejected")
+                .description("Requests refused by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/cashcards");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long waitNanos = tokenBuckets.tryAcquire(request.getRemoteAddr());
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            overloaded.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            chain.doFilter(request, response);
+            dropped = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+        } finally {
+            concurrencyLimit.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        response.setStatus(status.value());
+        long seconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+    }
+}
@@ -0,0 +1,12 @@
+package example.cashcard;
+
+/**
+ * Request body of the credit and debit endpoints: the positive amount, in cents,
+ * to add to or take from a card's balance.
+ */
+public record BalanceChange(@Cents Long amount) {
+
+    boolean isValid() {
+        return amount != null && amount > 0;
+    }
+}
@@ -0,0 +1,350 @@
+package example.cashcard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of balance changes, written to fixed-size memory-mapped
+ * segment files in {@code directory}. A single writer thread drains whatever
+ * has been queued since its last pass, copies it into the current segment and,
+ * depending on the {@link FsyncPolicy}, forces it to disk once for the whole
+ * group before completing the callers' futures. A full segment is forced and a
+ * new one started.
+ *
+ * <p>Each record is {@code [length][crc32c][payload]}. On startup the segments
+ * are scanned up to the first empty or damaged record, which rebuilds the
+ * per-card offset index that {@link #history(long)} reads through and drops a
+ * record torn by a crash.
+ */
+class BalanceJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceJournal.class);
+
+    /**
+     * How often written records are forced to the storage device.
+     */
+    enum FsyncPolicy {
+        /**
+         * Every group is forced before its writers are released.
+         */
+        ALWAYS,
+        /**
+         * Forced at most once per {@code fsync-interval}; a crash of the machine
+         * loses at most that much.
+         */
+        INTERVAL,
+        /**
+         * Left to the operating system; survives a crash of the process only.
+         */
+        NEVER
+    }
+
+    static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    // sequence, timestamp, card id, amount delta, kind, owner length
+    private static final int FIXED_PAYLOAD_SIZE = Long.BYTES * 4 + Byte.BYTES + Short.BYTES;
+    private static final int MAX_GROUP = 1024;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final Map<Long, Offsets> index = new ConcurrentHashMap<>();
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Owned by the writer thread once started.
+    private MappedByteBuffer current;
+    private long nextSequence = 1;
+    private long lastForce = System.nanoTime();
+    private boolean dirty;
+    private volatile boolean closed;
+
+    BalanceJournal(Path directory, int segmentSize, FsyncPolicy fsyncPolicy, Duration fsyncInterval) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE + " bytes");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        recover();
+        this.writer = new Thread(this::writeLoop, "balance-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues an entry. The future completes once the entry is readable through
+     * {@link #history(long)} and, with {@link FsyncPolicy#ALWAYS}, on disk.
+     */
+    CompletableFuture<BalanceJournalEntry> append(long cardId, String owner, BalanceJournalEntry.Kind kind, long amountDelta) {
+        Append append = new Append(cardId, owner, kind, amountDelta, new CompletableFuture<>());
+        if (closed) {
+            append.done().completeExceptionally(new IllegalStateException("Journal is closed"));
+        } else {
+            queue.add(append);
+        }
+        return append.done();
+    }
+
+    /**
+     * Returns the card's entries, oldest first.
+     */
+    List<BalanceJournalEntry> history(long cardId) {
+        Offsets offsets = index.get(cardId);
+        if (offsets == null) {
+            return List.of();
+        }
+        long[] positions = offsets.snapshot();
+        List<BalanceJournalEntry> entries = new ArrayList<>(positions.length);
+        for (long position : positions) {
+            entries.add(read(segments.get((int) (position >>> 32)), (int) position));
+        }
+        return entries;
+    }
+
+    private void writeLoop() {
+        List<Append> group = new ArrayList<>(MAX_GROUP);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Append first = fsyncPolicy == FsyncPolicy.INTERVAL && dirty
+                        ? queue.poll(fsyncIntervalNanos, TimeUnit.NANOSECONDS)
+                        : queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP - 1);
+                }
+            } catch (InterruptedException e) {
+                // close() interrupts to stop waiting; the loop condition decides.
+            }
+            writeGroup(group);
+            group.clear();
+        }
+    }
+
+    private void writeGroup(List<Append> group) {
+        List<BalanceJournalEntry> written = new ArrayList<>(group.size());
+        try {
+            for (Append append : group) {
+                written.add(write(append));
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS
+                    || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+                force();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not write {} journal entries", group.size() - written.size(), e);
+            for (int i = written.size(); i < group.size(); i++) {
+                group.get(i).done().completeExceptionally(e);
+            }
+            group = group.subList(0, written.size());
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).done().complete(written.get(i));
+        }
+    }
+
+    private BalanceJournalEntry write(Append append) throws IOException {
+        byte[] owner = append.owner().getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_PAYLOAD_SIZE + owner.length;
+        if (current.remaining() < HEADER_SIZE + length + Integer.BYTES) {
+            // Keep room for the zero length that marks the end of a segment.
+            rotate();
+        }
+        // Millisecond precision, as stored, so the entry handed back equals the one read later.
+        Instant timestamp = Instant.ofEpochMilli(System.currentTimeMillis());
+        BalanceJournalEntry entry = new BalanceJournalEntry(nextSequence++, timestamp, append.cardId(),
+                append.owner(), append.kind(), append.amountDelta());
+        int position = current.position();
+        current.position(position + HEADER_SIZE);
+        current.putLong(entry.sequence())
+                .putLong(entry.timestamp().toEpochMilli())
+                .putLong(entry.cardId())
+                .putLong(entry.amountDelta())
+                .put((byte) entry.kind().ordinal())
+                .putShort((short) owner.length)
+                .put(owner);
+        CRC32C crc = new CRC32C();
+        crc.update(current.slice(position + HEADER_SIZE, length));
+        // Length last, so a reader never sees a length without its payload.
+        current.putInt(position + Integer.BYTES, (int) crc.getValue());
+        current.putInt(position, length);
+        dirty = true;
+        index.computeIfAbsent(entry.cardId(), id -> new Offsets())
+                .add((long) (segments.size() - 1) << 32 | position);
+        return entry;
+    }
+
+    private void rotate() throws IOException {
+        force();
+        openSegment(segments.size());
+    }
+
+    private void force() {
+        if (dirty) {
+            current.force();
+            dirty = false;
+        }
+        lastForce = System.nanoTime();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            if (!files.get(i).equals(segmentPath(i))) {
+                throw new IllegalStateException("Journal segment " + segmentPath(i) + " is missing");
+            }
+            try (FileChannel segment = FileChannel.open(files.get(i), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = segment.map(FileChannel.MapMode.READ_WRITE, 0, segment.size());
+                segments.add(buffer);
+                int position = 0;
+                BalanceJournalEntry entry;
+                while ((entry = readValid(buffer, position)) != null) {
+                    index.computeIfAbsent(entry.cardId(), id -> new Offsets()).add((long) i << 32 | position);
+                    nextSequence = entry.sequence() + 1;
+                    position += HEADER_SIZE + buffer.getInt(position);
+                }
+                if (position + Integer.BYTES <= buffer.capacity() && buffer.getInt(position) != 0) {
+                    log.warn("Dropping damaged journal tail at {}:{}", files.get(i), position);
+                    buffer.putInt(position, 0);
+                    buffer.force();
+                }
+                buffer.position(position);
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            current = segments.get(segments.size() - 1);
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        // The mapping stays valid after the channel is closed.
+        try (FileChannel segment = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            current = segment.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segments.add(current);
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Returns the record at {@code position}, or {@code null} at the end of the
+     * written data or at a torn record.
+     */
+    private static BalanceJournalEntry readValid(MappedByteBuffer segment, int position) {
+        if (position + HEADER_SIZE > segment.capacity()) {
+            return null;
+        }
+        int length = segment.getInt(position);
+        if (length < FIXED_PAYLOAD_SIZE || position + HEADER_SIZE + length > segment.capacity()) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(position + HEADER_SIZE, length));
+        if ((int) crc.getValue() != segment.getInt(position + Integer.BYTES)) {
+            return null;
+        }
+        return read(segment, position);
+    }
+
+    private static BalanceJournalEntry read(MappedByteBuffer segment, int position) {
+        int payload = position + HEADER_SIZE;
+        byte[] owner = new byte[segment.getShort(payload + Long.BYTES * 4 + Byte.BYTES)];
+        segment.get(payload + FIXED_PAYLOAD_SIZE, owner);
+        return new BalanceJournalEntry(
+                segment.getLong(payload),
+                Instant.ofEpochMilli(segment.getLong(payload + Long.BYTES)),
+                segment.getLong(payload + Long.BYTES * 2),
+                new String(owner, StandardCharsets.UTF_8),
+                BalanceJournalEntry.Kind.values()[segment.get(payload + Long.BYTES * 4)],
+                segment.getLong(payload + Long.BYTES * 3));
+    }
+
+    /**
+     * Drains what is queued, forces it to disk and stops the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Append append;
+        while ((append = queue.poll()) != null) {
+            append.done().completeExceptionally(new IllegalStateException("Journal is closed"));
+        }
+        try {
+            force();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Append(long cardId, String owner, BalanceJournalEntry.Kind kind, long amountDelta,
+                          CompletableFuture<BalanceJournalEntry> done) {
+    }
+
+    /**
+     * Positions of one card's records, {@code segment << 32 | offset}; appended
+     * by the writer thread and copied by readers.
+     */
+    private static final class Offsets {
+
+        private long[] positions = new long[4];
+        private int size;
+
+        synchronized void add(long position) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        synchronized long[] snapshot() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+}
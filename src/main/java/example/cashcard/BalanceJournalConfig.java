@@ -0,0 +1,37 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Records every balance change in a {@link BalanceJournal} under
+ * {@code cashcard.journal.directory}, served by
+ * {@link CashCardHistoryController}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cashcard.journal", name = "enabled", havingValue = "true")
+public class BalanceJournalConfig {
+
+    @Bean
+    BalanceJournal balanceJournal(@Value("${cashcard.journal.directory}") Path directory,
+                                  @Value("${cashcard.journal.segment-size}") DataSize segmentSize,
+                                  @Value("${cashcard.journal.fsync}") BalanceJournal.FsyncPolicy fsyncPolicy,
+                                  @Value("${cashcard.journal.fsync-interval}") Duration fsyncInterval) throws IOException {
+        return new BalanceJournal(directory, Math.toIntExact(segmentSize.toBytes()), fsyncPolicy, fsyncInterval);
+    }
+
+    @Bean
+    BalanceJournalRecorder balanceJournalRecorder(BalanceJournal balanceJournal, MeterRegistry meterRegistry) {
+        return new BalanceJournalRecorder(balanceJournal, meterRegistry);
+    }
+}
@@ -0,0 +1,25 @@
+package example.cashcard;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Instant;
+
+/**
+ * One balance change as recorded by {@link BalanceJournal}. {@code sequence}
+ * orders entries across all cards.
+ */
+public record BalanceJournalEntry(long sequence,
+                                  Instant timestamp,
+                                  @JsonIgnore long cardId,
+                                  @JsonIgnore String owner,
+                                  Kind kind,
+                                  @Cents long amountDelta) {
+
+    public enum Kind {
+        CREATED, CHANGED;
+
+        static Kind of(CashCardChangedEvent event) {
+            return event.cardCountDelta() > 0 ? CREATED : CHANGED;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Appends each {@link CashCardChangedEvent} to the journal once its transaction
+ * has committed, so rolled back writes leave no trace. A transaction's events
+ * are queued together and then waited for, so a batch of a thousand cards
+ * shares its group commits instead of waiting for a thousand in a row. By the
+ * time the response is sent the changes are in {@code /history}, and with
+ * {@code fsync=always} on disk.
+ *
+ * <p>An append that fails is logged and counted in
+ * {@code cashcard.journal.append.failures}; the change itself is committed, and
+ * failing the request would only invite a retry.
+ */
+class BalanceJournalRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceJournalRecorder.class);
+
+    private final BalanceJournal journal;
+    private final Counter failures;
+
+    BalanceJournalRecorder(BalanceJournal journal, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.failures = Counter.builder("cashcard.journal.append.failures")
+                .description("Committed balance changes that could not be journaled")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    void onCashCardChanged(CashCardChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(event));
+            return;
+        }
+        pendingEvents().add(event);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CashCardChangedEvent> pendingEvents() {
+        List<CashCardChangedEvent> pending = (List<CashCardChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<CashCardChangedEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(BalanceJournalRecorder.this);
+                }
+            });
+            pending = events;
+        }
+        return pending;
+    }
+
+    private void append(List<CashCardChangedEvent> events) {
+        List<CompletableFuture<BalanceJournalEntry>> appends = new ArrayList<>(events.size());
+        for (CashCardChangedEvent event : events) {
+            appends.add(journal.append(event.id(), event.owner(), BalanceJournalEntry.Kind.of(event), event.amountDelta()));
+        }
+        for (int i = 0; i < appends.size(); i++) {
+            try {
+                appends.get(i).join();
+            } catch (CompletionException e) {
+                failures.increment();
+                log.error("Could not journal {}", events.get(i), e.getCause());
+            }
+        }
+    }
+}
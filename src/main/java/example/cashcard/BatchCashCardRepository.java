@@ -0,0 +1,10 @@
+package example.cashcard;
+
+import java.util.List;
+
+public interface BatchCashCardRepository {
+
+    List<BatchItemResult> insertAll(@ShardKey String owner, List<BatchItem> items);
+
+    List<BatchItemResult> updateAll(@ShardKey String owner, List<BatchItem> items);
+}
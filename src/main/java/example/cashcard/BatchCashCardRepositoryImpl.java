@@ -0,0 +1,168 @@
+package example.cashcard;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes many cards per round trip using JDBC statement batching. Each call runs
+ * in a single transaction; elements that cannot be written are reported rather
+ * than failing the whole batch.
+ */
+class BatchCashCardRepositoryImpl implements BatchCashCardRepository {
+
+    private static final String INSERT = "INSERT INTO cash_card (AMOUNT, OWNER) VALUES (?, ?)";
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final ShardedIdGenerator idGenerator;
+
+    BatchCashCardRepositoryImpl(NamedParameterJdbcOperations jdbc, ObjectProvider<ShardedIdGenerator> idGenerator) {
+        this.jdbc = jdbc;
+        this.idGenerator = idGenerator.getIfAvailable();
+    }
+
+    @Override
+    @Transactional
+    public List<BatchItemResult> insertAll(String owner, List<BatchItem> cashCards) {
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < cashCards.size(); i++) {
+            if (cashCards.get(i) != null && cashCards.get(i).amount() != null) {
+                accepted.add(i);
+            }
+        }
+        List<Long> ids = accepted.isEmpty() ? List.of()
+                : idGenerator != null ? insertWithIds(owner, cashCards, accepted)
+                : insertWithGeneratedIds(owner, cashCards, accepted);
+
+        List<BatchItemResult> results = new ArrayList<>(cashCards.size());
+        int next = 0;
+        for (int i = 0; i < cashCards.size(); i++) {
+            if (next < accepted.size() && accepted.get(next) == i) {
+                results.add(new BatchItemResult(i, ids.get(next++), HttpStatus.CREATED.value(),
+                        cashCards.get(i).amount()));
+            } else {
+                results.add(new BatchItemResult(i, null, HttpStatus.BAD_REQUEST.value()));
+            }
+        }
+        return results;
+    }
+
+    private List<Long> insertWithGeneratedIds(String owner, List<BatchItem> cashCards, List<Integer> accepted) {
+        return jdbc.getJdbcOperations().execute(
+                (ConnectionCallback<List<Long>>) con -> {
+                    Savepoint beforeBatch = con.setSavepoint();
+                    List<Long> generated = new ArrayList<>(accepted.size());
+                    try (PreparedStatement ps = con.prepareStatement(INSERT, new String[]{"ID"})) {
+                        for (int index : accepted) {
+                            ps.setLong(1, cashCards.get(index).amount());
+                            ps.setString(2, owner);
+                            ps.addBatch();
+                        }
+                        ps.executeBatch();
+                        readKeys(ps, generated);
+                    }
+                    if (generated.size() == accepted.size()) {
+                        return generated;
+                    }
+                    // Not every driver reports a key per batched row; insert one row at a time instead.
+                    con.rollback(beforeBatch);
+                    generated.clear();
+                    try (PreparedStatement ps = con.prepareStatement(INSERT, new String[]{"ID"})) {
+                        for (int index : accepted) {
+                            ps.setLong(1, cashCards.get(index).amount());
+                            ps.setString(2, owner);
+                            ps.executeUpdate();
+                            int before = generated.size();
+                            readKeys(ps, generated);
+                            if (generated.size() != before + 1) {
+                                throw new DataRetrievalFailureException(
+                                        "Driver returned no generated key for an inserted cash card");
+                            }
+                        }
+                    }
+                    return generated;
+                });
+    }
+
+    private static void readKeys(PreparedStatement ps, List<Long> generated) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next()) {
+                generated.add(keys.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Sharded deployments draw ids up front so they stay unique across shards.
+     */
+    private List<Long> insertWithIds(String owner, List<BatchItem> cashCards, List<Integer> accepted) {
+        List<Long> ids = idGenerator.nextIds(owner, accepted.size());
+        List<Object[]> rows = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            rows.add(new Object[]{ids.get(i), cashCards.get(accepted.get(i)).amount(), owner});
+        }
+        jdbc.getJdbcOperations().batchUpdate("INSERT INTO cash_card (ID, AMOUNT, OWNER) VALUES (?, ?, ?)", rows);
+        return ids;
+    }
+
+    @Override
+    @Transactional
+    public List<BatchItemResult> updateAll(String owner, List<BatchItem> cashCards) {
+        List<Long> requestedIds = cashCards.stream()
+                .filter(Objects::nonNull)
+                .map(BatchItem::id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        // Current amounts of the owned cards, locked so the deltas stay exact until commit.
+        Map<Long, Long> amounts = new HashMap<>();
+        if (!requestedIds.isEmpty()) {
+            jdbc.query("SELECT ID, AMOUNT FROM cash_card WHERE OWNER = :owner AND ID IN (:ids) FOR UPDATE",
+                    new MapSqlParameterSource()
+                            .addValue("owner", owner)
+                            .addValue("ids", requestedIds),
+                    (RowCallbackHandler) rs -> amounts.put(rs.getLong("ID"), rs.getLong("AMOUNT")));
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(cashCards.size());
+        List<SqlParameterSource> updates = new ArrayList<>();
+        for (int i = 0; i < cashCards.size(); i++) {
+            BatchItem cashCard = cashCards.get(i);
+            if (cashCard == null || cashCard.id() == null || cashCard.amount() == null) {
+                results.add(new BatchItemResult(i, cashCard != null ? cashCard.id() : null,
+                        HttpStatus.BAD_REQUEST.value()));
+            } else if (!amounts.containsKey(cashCard.id())) {
+                results.add(new BatchItemResult(i, cashCard.id(), HttpStatus.NOT_FOUND.value()));
+            } else {
+                updates.add(new MapSqlParameterSource()
+                        .addValue("id", cashCard.id())
+                        .addValue("owner", owner)
+                        .addValue("amount", cashCard.amount()));
+                long previous = amounts.put(cashCard.id(), cashCard.amount());
+                results.add(new BatchItemResult(i, cashCard.id(), HttpStatus.NO_CONTENT.value(),
+                        cashCard.amount() - previous));
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbc.batchUpdate("UPDATE cash_card SET AMOUNT = :amount, VERSION = VERSION + 1 WHERE ID = :id AND OWNER = :owner",
+                    updates.toArray(SqlParameterSource[]::new));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,9 @@
+package example.cashcard;
+
+/**
+ * One element of a batch create or update request, amount in cents. Both
+ * fields stay nullable so an incomplete element is answered with a 400 item
+ * instead of failing the whole batch.
+ */
+public record BatchItem(Long id, @Cents Long amount) {
+}
@@ -0,0 +1,16 @@
+package example.cashcard;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Outcome of one element of a batch request. {@code index} is the element's
+ * position in the request array and {@code status} an HTTP status code.
+ * {@code amountDelta} is how much the element moved the owner's total balance;
+ * it is for the owner summary and not part of the response.
+ */
+public record BatchItemResult(int index, Long id, int status, @JsonIgnore long amountDelta) {
+
+    public BatchItemResult(int index, Long id, int status) {
+        this(index, id, status, 0);
+    }
+}
@@ -0,0 +1,104 @@
+package example.cashcard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+
+/**
+ * Remembers successful username/password authentications so that repeat callers
+ * skip the (deliberately slow) password encoder. Entries are keyed by username
+ * and hold a salted SHA-256 of the credentials, so the cache never holds a
+ * plain-text password and a user's entry can be dropped directly when their
+ * password or roles change. Failed attempts are never cached and always go
+ * through the delegate.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, VerifiedCredentials> verified;
+    private final byte[] salt = new byte[16];
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, long maximumSize, Duration ttl) {
+        this.delegate = delegate;
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String username = authentication.getName();
+        byte[] digest = digestOf(username, authentication.getCredentials().toString());
+        VerifiedCredentials cached = verified.getIfPresent(username);
+        if (cached != null && MessageDigest.isEqual(cached.digest(), digest)) {
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken
+                    .authenticated(cached.authentication().getPrincipal(), null,
+                            cached.authentication().getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            verified.put(username, new VerifiedCredentials(digest, result));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication)
+                && delegate.supports(authentication);
+    }
+
+    /**
+     * Drops the cached authentication of the given user. {@link EvictingUserDetailsManager}
+     * calls this whenever a user is changed or removed.
+     */
+    public void evict(String username) {
+        verified.invalidate(username);
+    }
+
+    public void evictAll() {
+        verified.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return verified.stats();
+    }
+
+    Cache<String, VerifiedCredentials> cache() {
+        return verified;
+    }
+
+    private byte[] digestOf(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record VerifiedCredentials(byte[] digest, Authentication authentication) {
+    }
+}
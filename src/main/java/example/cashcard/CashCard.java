@@ -1,6 +1,20 @@
 package example.cashcard;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
 
-public record CashCard(@Id Long id, Double amount, String owner) {
-}
\ No newline at end of file
+/**
+ * A cash card. {@code amount} is in cents; JSON carries it as a decimal number
+ * and a request body without one is rejected.
+ */
+@Table
+public record CashCard(@Id Long id, @JsonProperty(required = true) @Cents long amount, String owner,
+                       @JsonIgnore @Version Long version) {
+
+    public CashCard(Long id, long amount, String owner) {
+        this(id, amount, owner, null);
+    }
+}
@@ -0,0 +1,128 @@
+package example.cashcard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of {@link CashCardRepository#findByIdAndOwner}.
+ * Misses are cached too (for a shorter time) so repeated lookups of unknown or
+ * foreign ids do not reach the database either. Entries are dropped once a
+ * {@link CashCardChangedEvent} has been committed.
+ *
+ * <p>With replicas, a card changed within the read-your-writes window is
+ * reloaded from the primary, in a transaction of its own, so a lagging replica
+ * cannot put the old card back for a whole TTL.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CashCardCache {
+
+    private final CashCardRepository cashCardRepository;
+    private final List<CashCardCacheInvalidationHook> invalidationHooks;
+    private final Cache<Key, Optional<CashCard>> cashCards;
+    private final Cache<Key, Boolean> recentlyChanged;
+    private final TransactionTemplate primaryRead;
+
+    public CashCardCache(CashCardRepository cashCardRepository,
+                         List<CashCardCacheInvalidationHook> invalidationHooks,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${cashcard.cache.maximum-size}") long maximumSize,
+                         @Value("${cashcard.cache.ttl}") Duration ttl,
+                         @Value("${cashcard.cache.negative-ttl}") Duration negativeTtl,
+                         @Value("${cashcard.replicas.enabled}") boolean replicas,
+                         @Value("${cashcard.replicas.read-your-writes-window}") Duration readYourWritesWindow) {
+        this.cashCardRepository = cashCardRepository;
+        this.invalidationHooks = invalidationHooks;
+        this.recentlyChanged = replicas
+                ? Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(readYourWritesWindow).build()
+                : null;
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.primaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.primaryRead.setReadOnly(true);
+        this.cashCards = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Key, Optional<CashCard>>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Optional<CashCard> value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Optional<CashCard> value,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Optional<CashCard> value,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public CashCard findByIdAndOwner(Long id, String owner) {
+        return cashCards.get(new Key(id, owner), this::load).orElse(null);
+    }
+
+    private Optional<CashCard> load(Key key) {
+        if (recentlyChanged != null && recentlyChanged.getIfPresent(key) != null) {
+            return ReplicaRoutingDataSource.readFromPrimary(() -> primaryRead.execute(status ->
+                    Optional.ofNullable(cashCardRepository.findByIdAndOwner(key.id(), key.owner()))));
+        }
+        return Optional.ofNullable(cashCardRepository.findByIdAndOwner(key.id(), key.owner()));
+    }
+
+    /**
+     * Returns what the cache holds for the card without loading it: {@code null}
+     * if nothing is cached, an empty {@link Optional} if the card is cached as
+     * missing.
+     */
+    public Optional<CashCard> getIfCached(Long id, String owner) {
+        return cashCards.getIfPresent(new Key(id, owner));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onCashCardChanged(CashCardChangedEvent event) {
+        evict(event.id(), event.owner());
+        invalidationHooks.forEach(hook -> hook.invalidated(event.id(), event.owner()));
+    }
+
+    /**
+     * Drops the local entry only, without notifying the invalidation hooks.
+     * The card counts as recently changed, like one changed locally.
+     */
+    public void evict(Long id, String owner) {
+        Key key = new Key(id, owner);
+        if (recentlyChanged != null) {
+            recentlyChanged.put(key, Boolean.TRUE);
+        }
+        cashCards.invalidate(key);
+    }
+
+    public CacheStats stats() {
+        return cashCards.stats();
+    }
+
+    Cache<Key, Optional<CashCard>> cache() {
+        return cashCards;
+    }
+
+    record Key(Long id, String owner) {
+    }
+}
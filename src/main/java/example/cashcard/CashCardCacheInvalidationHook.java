@@ -0,0 +1,12 @@
+package example.cashcard;
+
+/**
+ * Extension point for keeping the card caches of several application nodes
+ * coherent. Every bean implementing this is told about each local invalidation
+ * and can forward it (for example over a message broker); the receiving node
+ * then calls {@link CashCardCache#evict(Long, String)}.
+ */
+public interface CashCardCacheInvalidationHook {
+
+    void invalidated(Long id, String owner);
+}
@@ -0,0 +1,9 @@
+package example.cashcard;
+
+/**
+ * Data of a {@code created} or {@code changed} event on
+ * {@code /cashcards/stream}: the card and how far the write moved its amount.
+ * A client holding the card applies the delta; events arrive in commit order.
+ */
+public record CashCardChange(Long id, @Cents long amountDelta) {
+}
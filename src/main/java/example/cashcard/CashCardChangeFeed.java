@@ -0,0 +1,258 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed {@link CashCardChangedEvent}s out to the owner's
+ * {@code /cashcards/stream} subscribers. Publishing never blocks on a client:
+ * each subscriber has a bounded buffer drained by the feed's own senders, and a
+ * subscriber whose buffer is full, or whose send has been blocked for longer
+ * than {@code write-timeout}, is disconnected rather than slowing anyone else
+ * down. It then reconnects with {@code Last-Event-ID}.
+ *
+ * <p>Senders are virtual threads on Java 21 and later, otherwise daemon threads
+ * of their own pool, so clients that stop reading never hold threads of the
+ * application task executor. A blocked write itself ends with the container's
+ * socket timeout ({@code server.tomcat.connection-timeout}).
+ *
+ * <p>The last {@code replay-size} changes across all owners are kept, so a
+ * reconnecting client is sent what it missed. When that is no longer possible,
+ * because the changes were overwritten or the id comes from before a restart,
+ * the client gets a {@code reset} event and should reload its cards.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class CashCardChangeFeed implements DisposableBean {
+
+    static final String CREATED = "created";
+    static final String CHANGED = "changed";
+    static final String RESET = "reset";
+
+    // Event ids are "<generation>:<sequence>", so ids handed out before a restart are recognised.
+    private final String generation = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Change[] replay;
+    private long sequence;
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long reconnectTimeMillis;
+    private final long writeTimeoutNanos;
+    private final Counter slowConsumersDropped;
+
+    @Autowired
+    CashCardChangeFeed(MeterRegistry meterRegistry,
+                       @Value("${cashcard.stream.buffer-size}") int bufferSize,
+                       @Value("${cashcard.stream.replay-size}") int replaySize,
+                       @Value("${cashcard.stream.timeout}") Duration timeout,
+                       @Value("${cashcard.stream.reconnect-time}") Duration reconnectTime,
+                       @Value("${cashcard.stream.write-timeout}") Duration writeTimeout) {
+        this(newSenders(), meterRegistry, bufferSize, replaySize, timeout, reconnectTime, writeTimeout);
+    }
+
+    CashCardChangeFeed(Executor executor, MeterRegistry meterRegistry, int bufferSize, int replaySize,
+                       Duration timeout, Duration reconnectTime, Duration writeTimeout) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.replay = new Change[replaySize];
+        this.timeoutMillis = timeout.toMillis();
+        this.reconnectTimeMillis = reconnectTime.toMillis();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.slowConsumersDropped = Counter.builder("cashcard.stream.slow-consumers.dropped")
+                .description("Stream subscribers disconnected because they fell behind or stopped reading")
+                .register(meterRegistry);
+    }
+
+    private static ExecutorService newSenders() {
+        if (Runtime.version().feature() >= 21) {
+            return VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "cashcard-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService senders) {
+            senders.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onCashCardChanged(CashCardChangedEvent event) {
+        String name = event.cardCountDelta() > 0 ? CREATED : CHANGED;
+        synchronized (replay) {
+            Change change = new Change(++sequence, event.owner(), name, new CashCardChange(event.id(), event.amountDelta()));
+            replay[(int) (change.sequence() % replay.length)] = change;
+            for (Subscriber subscriber : subscribers.getOrDefault(event.owner(), Set.of())) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    /**
+     * Subscribes to the owner's changes, first replaying those after
+     * {@code lastEventId} when given.
+     */
+    SseEmitter subscribe(String owner, String lastEventId) {
+        Subscriber subscriber = new Subscriber(owner, new SseEmitter(timeoutMillis));
+        subscriber.emitter.onCompletion(subscriber::remove);
+        subscriber.emitter.onTimeout(subscriber::remove);
+        subscriber.emitter.onError(error -> subscriber.remove());
+        try {
+            // Held until the response starts, then sent first; it also gets the headers to the client.
+            subscriber.emitter.send(SseEmitter.event().reconnectTime(reconnectTimeMillis));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (replay) {
+            if (lastEventId != null && !replayAfter(subscriber, lastEventId)) {
+                subscriber.buffer.clear();
+                subscriber.buffer.add(new Change(sequence, owner, RESET, null));
+            }
+            subscribers.compute(owner, (o, set) -> {
+                Set<Subscriber> owned = set != null ? set : ConcurrentHashMap.newKeySet();
+                owned.add(subscriber);
+                return owned;
+            });
+        }
+        subscriber.scheduleDrain();
+        return subscriber.emitter;
+    }
+
+    /**
+     * Buffers the owner's changes after {@code lastEventId}; {@code false} if
+     * some may be missing or they do not fit the buffer.
+     */
+    private boolean replayAfter(Subscriber subscriber, String lastEventId) {
+        int separator = lastEventId.indexOf(':');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(generation)) {
+            return false;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long oldest = Math.max(1, sequence - replay.length + 1);
+        if (last > sequence || last < oldest - 1) {
+            return false;
+        }
+        for (long s = last + 1; s <= sequence; s++) {
+            Change change = replay[(int) (s % replay.length)];
+            if (change.owner().equals(subscriber.owner) && !subscriber.buffer.offer(change)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int subscriberCount(String owner) {
+        return subscribers.getOrDefault(owner, Set.of()).size();
+    }
+
+    private String eventId(long sequence) {
+        return generation + ":" + sequence;
+    }
+
+    private record Change(long sequence, String owner, String name, CashCardChange data) {
+    }
+
+    private final class Subscriber {
+
+        private final String owner;
+        private final SseEmitter emitter;
+        private final Queue<Change> buffer = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean sending;
+        private volatile long sendStartedNanos;
+
+        Subscriber(String owner, SseEmitter emitter) {
+            this.owner = owner;
+            this.emitter = emitter;
+        }
+
+        void offer(Change change) {
+            if (sending && System.nanoTime() - sendStartedNanos > writeTimeoutNanos) {
+                drop();
+            } else if (buffer.offer(change)) {
+                scheduleDrain();
+            } else {
+                drop();
+            }
+        }
+
+        private void drop() {
+            slowConsumersDropped.increment();
+            remove();
+            // Completing waits for a send in progress, which is what made this subscriber slow.
+            executor.execute(emitter::complete);
+        }
+
+        void scheduleDrain() {
+            if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Change change;
+                while ((change = buffer.poll()) != null) {
+                    SseEmitter.SseEventBuilder event = SseEmitter.event()
+                            .id(eventId(change.sequence()))
+                            .name(change.name());
+                    sendStartedNanos = System.nanoTime();
+                    sending = true;
+                    try {
+                        emitter.send(change.data() != null ? event.data(change.data(), MediaType.APPLICATION_JSON)
+                                : event.data(""));
+                    } finally {
+                        sending = false;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter was completed; the callbacks clean up.
+                remove();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // Pick up what was offered between the last poll and clearing the flag.
+            scheduleDrain();
+        }
+
+        void remove() {
+            subscribers.computeIfPresent(owner, (o, set) -> set.remove(this) && set.isEmpty() ? null : set);
+        }
+    }
+}
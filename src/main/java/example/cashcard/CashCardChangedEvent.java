@@ -0,0 +1,9 @@
+package example.cashcard;
+
+/**
+ * Published after a card has been created or written to, from every write path.
+ * The deltas say how the write moved the owner's card count and total balance
+ * (in cents); {@code amount} is the card's balance after the write.
+ */
+public record CashCardChangedEvent(Long id, String owner, int cardCountDelta, long amountDelta, long amount) {
+}
@@ -1,40 +1,115 @@
 package example.cashcard;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.security.Principal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/cashcards")
 public class CashCardController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
     private CashCardRepository cashCardRepository;
+    private CashCardCache cashCardCache;
+    private CashCardChangeFeed changeFeed;
+    private ApplicationEventPublisher eventPublisher;
+    private ObjectMapper objectMapper;
+    private int maxBatchSize;
+    private int maxLookupSize;
+    private int exportFetchSize;
 
-    public CashCardController(CashCardRepository cashCardRepository) {
+    public CashCardController(CashCardRepository cashCardRepository,
+                              CashCardCache cashCardCache,
+                              CashCardChangeFeed changeFeed,
+                              ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper,
+                              @Value("${cashcard.batch.max-size}") int maxBatchSize,
+                              @Value("${cashcard.lookup.max-size}") int maxLookupSize,
+                              @Value("${cashcard.export.fetch-size}") int exportFetchSize) {
         this.cashCardRepository = cashCardRepository;
+        this.cashCardCache = cashCardCache;
+        this.changeFeed = changeFeed;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLookupSize = maxLookupSize;
+        this.exportFetchSize = exportFetchSize;
     }
 
     @GetMapping("/{requestedId}")
-    public ResponseEntity<CashCard> findById(@PathVariable Long requestedId, Principal principal) {
-        CashCard cashCard = cashCardRepository
+    @Transactional(readOnly = true)
+    public ResponseEntity<CashCard> findById(@PathVariable Long requestedId,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                             Principal principal) {
+        if (ifNoneMatch != null) {
+            // A revalidating poll only needs the version, not the row or its JSON;
+            // a cached card already has it.
+            Optional<CashCard> cached = cashCardCache.getIfCached(requestedId, principal.getName());
+            Long version = cached != null
+                    ? cached.map(CashCard::version).orElse(null)
+                    : cashCardRepository.findVersionByIdAndOwner(requestedId, principal.getName());
+            if (version == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (matchesAny(ifNoneMatch, String.valueOf(version))) {
+                return notModified(String.valueOf(version));
+            }
+        }
+        CashCard cashCard = cashCardCache
                 .findByIdAndOwner(requestedId, principal.getName());
         if (cashCard != null) {
-            return ResponseEntity.ok(cashCard);
+            return ResponseEntity.ok()
+                    .eTag(String.valueOf(cashCard.version()))
+                    .body(cashCard);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<CashCard>> findAll(Pageable pageable, Principal principal) {
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<CashCard>> findAll(Pageable pageable,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  Principal principal) {
+        // Read the revision before the rows, so the ETag is never newer than the body.
+        String eTag = String.valueOf(cashCardRepository.findRevisionByOwner(principal.getName()));
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
         Page<CashCard> page = cashCardRepository.findByOwner(
                 principal.getName(),
                 PageRequest.of(
@@ -43,16 +118,126 @@ public class CashCardController {
                         pageable.getSortOr(Sort.by(Sort.Direction.DESC, "amount"))
                 )
         );
-        return ResponseEntity.ok(page.getContent());
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .body(page.getContent());
+    }
+
+    @GetMapping(params = "cursor")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<CashCard>> findAllByCursor(@RequestParam String cursor,
+                                                          Pageable pageable,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                          Principal principal) {
+        if (!CashCardCursor.supports(pageable.getSort())) {
+            return ResponseEntity.badRequest().build();
+        }
+        CashCardCursor position;
+        try {
+            position = cursor.isEmpty()
+                    ? CashCardCursor.first(pageable.getSort())
+                    : CashCardCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String eTag = String.valueOf(cashCardRepository.findRevisionByOwner(principal.getName()));
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, eTag)) {
+            return notModified(eTag);
+        }
+        Slice<CashCard> slice = cashCardRepository.findByOwnerAfter(
+                principal.getName(), position, pageable.getPageSize());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+        if (slice.hasNext()) {
+            List<CashCard> content = slice.getContent();
+            response.header(NEXT_CURSOR_HEADER, position.after(content.get(content.size() - 1)).encode());
+        }
+        return response.body(slice.getContent());
+    }
+
+    @GetMapping("/summary")
+    @Transactional(readOnly = true)
+    public ResponseEntity<CashCardSummary> summary(Principal principal) {
+        return ResponseEntity.ok(cashCardRepository.findSummaryByOwner(principal.getName()));
+    }
+
+    @GetMapping(params = "ids")
+    @Transactional(readOnly = true)
+    public ResponseEntity<CashCardLookupResult> findAllByIds(@RequestParam List<Long> ids, Principal principal) {
+        return lookup(ids, principal.getName());
+    }
+
+    @PostMapping("/lookup")
+    @Transactional(readOnly = true)
+    public ResponseEntity<CashCardLookupResult> lookupByIds(@RequestBody List<Long> ids, Principal principal) {
+        return lookup(ids, principal.getName());
+    }
+
+    private ResponseEntity<CashCardLookupResult> lookup(List<Long> ids, String owner) {
+        if (ids.size() > maxLookupSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        if (ids.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, CashCard> found = requested.isEmpty()
+                ? Map.of()
+                : cashCardRepository.findByOwnerAndIdIn(owner, requested).stream()
+                        .collect(Collectors.toMap(CashCard::id, Function.identity()));
+        List<CashCard> cashCards = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            CashCard cashCard = found.get(id);
+            if (cashCard != null) {
+                cashCards.add(cashCard);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return ResponseEntity.ok(new CashCardLookupResult(cashCards, missingIds));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(Principal principal) {
+        String owner = principal.getName();
+        ObjectWriter writer = objectMapper.writerFor(CashCard.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            // Closing returns the generator's buffers for reuse; the response stream stays Spring's to close.
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.setRootValueSeparator(null);
+                cashCardRepository.forEachByOwner(owner, exportFetchSize, cashCard -> {
+                    try {
+                        writer.writeValue(generator, cashCard);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                             Principal principal) {
+        return changeFeed.subscribe(principal.getName(), lastEventId);
     }
 
     @PostMapping
+    @Transactional
     public ResponseEntity<Void> createCashCard(@RequestBody CashCard newCashCard,
                                                UriComponentsBuilder ucb,
                                                Principal principal) {
         CashCard savedCashCard = cashCardRepository.save(
                 new CashCard(null, newCashCard.amount(), principal.getName())
         );
+        eventPublisher.publishEvent(new CashCardChangedEvent(savedCashCard.id(), savedCashCard.owner(),
+                1, savedCashCard.amount(), savedCashCard.amount()));
         URI savedCashCardLocation = ucb
                 .path("cashcards/{id}")
                 .buildAndExpand(savedCashCard.id())
@@ -61,19 +246,151 @@ public class CashCardController {
     }
 
     @PutMapping("/{requestedId}")
+    @Transactional
     public ResponseEntity<CashCard> update(@RequestBody CashCard updatedCashCard,
                                            @PathVariable Long requestedId,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                            Principal principal) {
-        CashCard cashCard = cashCardRepository
-                .findByIdAndOwner(requestedId, principal.getName());
+        String owner = principal.getName();
+        if (ifMatch == null || ifMatch.equals("*")) {
+            Long previousAmount = cashCardRepository.updateAmount(requestedId, owner, updatedCashCard.amount());
+            if (previousAmount != null) {
+                publishAmountChange(requestedId, owner, previousAmount, updatedCashCard.amount());
+                return ResponseEntity.noContent().build();
+            }
+            return ResponseEntity.notFound().build();
+        }
+        Long expectedVersion = parseVersion(ifMatch);
+        Long previousAmount = expectedVersion == null ? null : cashCardRepository
+                .updateAmountIfVersion(requestedId, owner, updatedCashCard.amount(), expectedVersion);
+        if (previousAmount != null) {
+            publishAmountChange(requestedId, owner, previousAmount, updatedCashCard.amount());
+            return ResponseEntity.noContent()
+                    .eTag(String.valueOf(expectedVersion + 1))
+                    .build();
+        }
+        // Only the failure path pays for telling a stale version apart from a missing card.
+        if (cashCardRepository.existsByIdAndOwner(requestedId, owner)) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/{requestedId}/credit")
+    @Transactional
+    public ResponseEntity<CashCard> credit(@PathVariable Long requestedId,
+                                           @RequestBody BalanceChange change,
+                                           Principal principal) {
+        if (!change.isValid()) {
+            return ResponseEntity.badRequest().build();
+        }
+        CashCard cashCard = cashCardRepository.credit(requestedId, principal.getName(), change.amount());
         if (cashCard != null) {
-            cashCardRepository.save(
-                    new CashCard(cashCard.id(), updatedCashCard.amount(), principal.getName())
-            );
-            return ResponseEntity.noContent().build();
+            eventPublisher.publishEvent(new CashCardChangedEvent(cashCard.id(), cashCard.owner(),
+                    0, change.amount(), cashCard.amount()));
+            return ResponseEntity.ok()
+                    .eTag(String.valueOf(cashCard.version()))
+                    .body(cashCard);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @PostMapping("/{requestedId}/debit")
+    @Transactional
+    public ResponseEntity<CashCard> debit(@PathVariable Long requestedId,
+                                          @RequestBody BalanceChange change,
+                                          Principal principal) {
+        if (!change.isValid()) {
+            return ResponseEntity.badRequest().build();
+        }
+        String owner = principal.getName();
+        CashCard cashCard = cashCardRepository.debit(requestedId, owner, change.amount());
+        if (cashCard != null) {
+            eventPublisher.publishEvent(new CashCardChangedEvent(cashCard.id(), cashCard.owner(),
+                    0, -change.amount(), cashCard.amount()));
+            return ResponseEntity.ok()
+                    .eTag(String.valueOf(cashCard.version()))
+                    .body(cashCard);
+        }
+        if (cashCardRepository.existsByIdAndOwner(requestedId, owner)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/batch")
+    @Transactional
+    public ResponseEntity<List<BatchItemResult>> createCashCards(@RequestBody List<BatchItem> newCashCards,
+                                                                 Principal principal) {
+        if (newCashCards.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<BatchItemResult> results = cashCardRepository.insertAll(principal.getName(), newCashCards);
+        publishChanges(newCashCards, results, principal.getName(), 1);
+        return ResponseEntity.ok(results);
+    }
+
+    @PutMapping("/batch")
+    @Transactional
+    public ResponseEntity<List<BatchItemResult>> updateCashCards(@RequestBody List<BatchItem> updatedCashCards,
+                                                                 Principal principal) {
+        if (updatedCashCards.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        List<BatchItemResult> results = cashCardRepository.updateAll(principal.getName(), updatedCashCards);
+        publishChanges(updatedCashCards, results, principal.getName(), 0);
+        return ResponseEntity.ok(results);
+    }
+
+    private void publishChanges(List<BatchItem> cashCards, List<BatchItemResult> results, String owner,
+                                int cardCountDelta) {
+        for (BatchItemResult result : results) {
+            if (HttpStatus.valueOf(result.status()).is2xxSuccessful()) {
+                eventPublisher.publishEvent(new CashCardChangedEvent(result.id(), owner,
+                        cardCountDelta, result.amountDelta(), cashCards.get(result.index()).amount()));
+            }
+        }
+    }
+
+    private void publishAmountChange(Long id, String owner, long previousAmount, long amount) {
+        eventPublisher.publishEvent(new CashCardChangedEvent(id, owner, 0, amount - previousAmount, amount));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .build();
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches {@code eTag}, using the weak
+     * comparison RFC 9110 prescribes for this header.
+     */
+    static boolean matchesAny(String ifNoneMatch, String eTag) {
+        String quoted = "\"" + eTag + "\"";
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Long parseVersion(String eTag) {
+        String value = eTag.trim();
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
 }
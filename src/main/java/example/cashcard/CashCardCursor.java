@@ -0,0 +1,68 @@
+package example.cashcard;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in an owner's card listing for keyset pagination. Cards sorted by
+ * amount are keyed by (amount, id); cards sorted by id by id alone. No other
+ * sort can be paged this way. The encoded form is opaque to clients.
+ */
+public record CashCardCursor(boolean byAmount, Sort.Direction direction, Long amount, Long id) {
+
+    public static CashCardCursor first(Sort sort) {
+        if (!supports(sort)) {
+            throw new IllegalArgumentException("Unsupported sort " + sort);
+        }
+        Sort.Order amountOrder = sort.getOrderFor("amount");
+        if (amountOrder != null || sort.isUnsorted()) {
+            Sort.Direction direction = amountOrder != null ? amountOrder.getDirection() : Sort.Direction.DESC;
+            return new CashCardCursor(true, direction, null, null);
+        }
+        Sort.Order idOrder = sort.getOrderFor("id");
+        return new CashCardCursor(false, idOrder != null ? idOrder.getDirection() : Sort.Direction.ASC, null, null);
+    }
+
+    public static CashCardCursor decode(String token) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        boolean byAmount = "a".equals(parts[0]);
+        if ((!byAmount && !"i".equals(parts[0])) || parts.length != (byAmount ? 4 : 3)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        Sort.Direction direction = Sort.Direction.fromString(parts[1]);
+        Long id = Long.valueOf(parts[2]);
+        Long amount = byAmount ? Long.valueOf(parts[3]) : null;
+        return new CashCardCursor(byAmount, direction, amount, id);
+    }
+
+    /**
+     * Whether every order of {@code sort} is on a property a cursor can be keyed by.
+     */
+    public static boolean supports(Sort sort) {
+        return sort.stream().allMatch(order -> order.getProperty().equals("amount")
+                || order.getProperty().equals("id"));
+    }
+
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    public CashCardCursor after(CashCard cashCard) {
+        return new CashCardCursor(byAmount, direction, byAmount ? cashCard.amount() : null, cashCard.id());
+    }
+
+    public String encode() {
+        String raw = (byAmount ? "a" : "i") + ":" + direction + ":" + id + (byAmount ? ":" + amount : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
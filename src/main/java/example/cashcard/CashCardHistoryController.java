@@ -0,0 +1,45 @@
+package example.cashcard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Serves a card's balance changes from the {@link BalanceJournal}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cashcard.journal", name = "enabled", havingValue = "true")
+@RequestMapping("/cashcards")
+public class CashCardHistoryController {
+
+    private final BalanceJournal balanceJournal;
+    private final CashCardRepository cashCardRepository;
+
+    public CashCardHistoryController(BalanceJournal balanceJournal, CashCardRepository cashCardRepository) {
+        this.balanceJournal = balanceJournal;
+        this.cashCardRepository = cashCardRepository;
+    }
+
+    @GetMapping("/{requestedId}/history")
+    @Transactional(readOnly = true)
+    public ResponseEntity<List<BalanceJournalEntry>> findHistory(@PathVariable Long requestedId, Principal principal) {
+        // Owner is checked against the journal, so a card with history costs no query.
+        List<BalanceJournalEntry> history = balanceJournal.history(requestedId).stream()
+                .filter(entry -> entry.owner().equals(principal.getName()))
+                .toList();
+        // Cards written before the journal was enabled exist without history.
+        if (history.isEmpty() && !cashCardRepository.existsByIdAndOwner(requestedId, principal.getName())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(history);
+    }
+}
@@ -0,0 +1,10 @@
+package example.cashcard;
+
+import java.util.List;
+
+/**
+ * Response of a lookup by id list: the caller's cards in request order, and the
+ * requested ids that are unknown or belong to someone else.
+ */
+public record CashCardLookupResult(List<CashCard> cashCards, List<Long> missingIds) {
+}
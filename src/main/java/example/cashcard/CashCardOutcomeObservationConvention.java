@@ -0,0 +1,52 @@
+package example.cashcard;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Adds a {@code result} tag to {@code http.server.requests} that says what
+ * happened to the caller in this API's terms (found, not_found, forbidden, ...)
+ * rather than just the status class. Only a successful read of a single card
+ * counts as found; listings and writes are ok.
+ */
+class CashCardOutcomeObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private static final String SINGLE_CARD = "/cashcards/{requestedId}";
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(result(context));
+    }
+
+    private static KeyValue result(ServerRequestObservationContext context) {
+        HttpServletResponse response = context.getResponse();
+        if (context.getError() != null || response == null) {
+            return KeyValue.of("result", "error");
+        }
+        int status = response.getStatus();
+        String result;
+        if (status >= 200 && status < 300) {
+            result = HttpMethod.GET.matches(context.getCarrier().getMethod())
+                    && SINGLE_CARD.equals(context.getPathPattern()) ? "found" : "ok";
+        } else if (status == 304) {
+            result = "not_modified";
+        } else if (status == 401) {
+            result = "unauthorized";
+        } else if (status == 403) {
+            result = "forbidden";
+        } else if (status == 404) {
+            result = "not_found";
+        } else if (status == 409 || status == 412) {
+            result = "conflict";
+        } else if (status >= 400 && status < 500) {
+            result = "rejected";
+        } else {
+            result = "error";
+        }
+        return KeyValue.of("result", result);
+    }
+}
@@ -0,0 +1,64 @@
+package example.cashcard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Folds every {@link CashCardChangedEvent} into the owner's summary row, inside
+ * the transaction that made the change. Changes are collected per owner and
+ * applied once just before commit, so a batch of a thousand cards costs one
+ * summary write rather than a thousand. The summary's revision also serves as
+ * the owner's listing ETag.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class CashCardOwnerSummaries {
+
+    private final CashCardRepository cashCardRepository;
+
+    CashCardOwnerSummaries(CashCardRepository cashCardRepository) {
+        this.cashCardRepository = cashCardRepository;
+    }
+
+    @EventListener
+    void onCashCardChanged(CashCardChangedEvent event) {
+        CashCardSummaryChange change = CashCardSummaryChange.of(event);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(event.owner(), change);
+            return;
+        }
+        pendingChanges().merge(event.owner(), change, CashCardSummaryChange::plus);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, CashCardSummaryChange> pendingChanges() {
+        Map<String, CashCardSummaryChange> pending = (Map<String, CashCardSummaryChange>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<String, CashCardSummaryChange> changes = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    changes.forEach(CashCardOwnerSummaries.this::apply);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(CashCardOwnerSummaries.this);
+                }
+            });
+            pending = changes;
+        }
+        return pending;
+    }
+
+    private void apply(String owner, CashCardSummaryChange change) {
+        cashCardRepository.applyToSummary(owner, change);
+    }
+}
@@ -2,13 +2,70 @@ package example.cashcard;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CashCardRepository extends CrudRepository<CashCard, Long>,
-        PagingAndSortingRepository<CashCard, Long> {
+        PagingAndSortingRepository<CashCard, Long>, KeysetCashCardRepository,
+        BatchCashCardRepository, ExportCashCardRepository, SummaryCashCardRepository {
+
+    CashCard findByIdAndOwner(Long id, @ShardKey String owner);
+
+    boolean existsByIdAndOwner(Long id, @ShardKey String owner);
+
+    Page<CashCard> findByOwner(@ShardKey String owner, PageRequest pageRequest);
+
+    List<CashCard> findByOwnerAndIdIn(@ShardKey String owner, Collection<Long> ids);
+
+    @Query("SELECT VERSION FROM cash_card WHERE ID = :id AND OWNER = :owner")
+    Long findVersionByIdAndOwner(Long id, @ShardKey String owner);
+
+    /**
+     * Returns the owner's change counter, which moves on every write to any of
+     * the owner's cards; {@code 0} if nothing has been written yet.
+     */
+    @Query("SELECT COALESCE(MAX(REVISION), 0) FROM cash_card_owner_summary WHERE OWNER = :owner")
+    long findRevisionByOwner(@ShardKey String owner);
+
+    /**
+     * Sets the card's balance and returns the balance it had before, or
+     * {@code null} if the owner has no such card.
+     */
+    @Transactional
+    @Query("SELECT AMOUNT FROM OLD TABLE (UPDATE cash_card SET AMOUNT = :amount, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner)")
+    Long updateAmount(Long id, @ShardKey String owner, Long amount);
+
+    /**
+     * Like {@link #updateAmount}, but only while the card is still at
+     * {@code version}; returns {@code null} otherwise.
+     */
+    @Transactional
+    @Query("SELECT AMOUNT FROM OLD TABLE (UPDATE cash_card SET AMOUNT = :amount, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner AND VERSION = :version)")
+    Long updateAmountIfVersion(Long id, @ShardKey String owner, Long amount, Long version);
 
-    CashCard findByIdAndOwner(Long id, String owner);
+    /**
+     * Adds {@code delta} to the card's balance in a single statement and returns
+     * the card as written, or {@code null} if the owner has no such card.
+     */
+    @Transactional
+    @Query("SELECT * FROM FINAL TABLE (UPDATE cash_card SET AMOUNT = AMOUNT + :delta, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner)")
+    CashCard credit(Long id, @ShardKey String owner, long delta);
 
-    Page<CashCard> findByOwner(String owner, PageRequest pageRequest);
+    /**
+     * Takes {@code delta} from the card's balance in a single statement, but only
+     * if the balance covers it. Returns the card as written, or {@code null} if
+     * the owner has no such card or the funds are insufficient.
+     */
+    @Transactional
+    @Query("SELECT * FROM FINAL TABLE (UPDATE cash_card SET AMOUNT = AMOUNT - :delta, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner AND AMOUNT >= :delta)")
+    CashCard debit(Long id, @ShardKey String owner, long delta);
 }
@@ -0,0 +1,16 @@
+package example.cashcard;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+class CashCardRowMapper implements RowMapper<CashCard> {
+
+    static final CashCardRowMapper INSTANCE = new CashCardRowMapper();
+
+    @Override
+    public CashCard mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new CashCard(rs.getLong("ID"), rs.getLong("AMOUNT"), rs.getString("OWNER"), rs.getLong("VERSION"));
+    }
+}
@@ -0,0 +1,49 @@
+package example.cashcard;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * What a native image needs beyond what Spring's AOT processing infers from the
+ * bean definitions. Spring Data contributes the repository proxies itself.
+ */
+class CashCardRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // JSON bodies, including those only written through ObjectMapper or SseEmitter.
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                CashCard.class, BalanceChange.class, BatchItemResult.class, CashCardChange.class,
+                CashCardLookupResult.class, CashCardSummary.class, BalanceJournalEntry.class);
+        // Instantiated by Jackson from @Cents, which the binding hints do not see through.
+        hints.reflection().registerType(CentsFormat.Serializer.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(CentsFormat.Deserializer.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        // Spring Data JDBC maps rows through CashCard's canonical constructor, and derives
+        // queries such as findByIdAndOwner from its properties.
+        hints.reflection().registerType(CashCard.class,
+                MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        // ShardKeyInterceptor reads the @ShardKey parameter annotations of the repository methods.
+        for (Class<?> repository : List.of(CashCardRepository.class, KeysetCashCardRepository.class,
+                BatchCashCardRepository.class, ExportCashCardRepository.class, SummaryCashCardRepository.class)) {
+            hints.reflection().registerType(repository, MemberCategory.INTROSPECT_PUBLIC_METHODS);
+        }
+
+        // Listed in spring.sql.init.data-locations; Boot only registers schema*.sql and data*.sql.
+        hints.resources().registerPattern("summary-backfill.sql");
+
+        // VirtualThreadConfig and CashCardChangeFeed look the factory up reflectively to keep compiling for Java 17.
+        hints.reflection().registerType(Executors.class, type -> type.withMethod("newVirtualThreadPerTaskExecutor",
+                List.<TypeReference>of(), ExecutableMode.INVOKE));
+    }
+}
@@ -0,0 +1,8 @@
+package example.cashcard;
+
+/**
+ * An owner's aggregate position, amounts in cents. {@code largestAmount} is
+ * {@code null} when the owner has no cards.
+ */
+public record CashCardSummary(long cardCount, @Cents long totalAmount, @Cents Long largestAmount) {
+}
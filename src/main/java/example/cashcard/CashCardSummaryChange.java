@@ -0,0 +1,23 @@
+package example.cashcard;
+
+/**
+ * What one or more writes did to an owner's cards, as far as the owner's
+ * summary row is concerned: how the card count and total balance moved, the
+ * largest balance written, and the largest balance any card was lowered from
+ * ({@code null} if no card went down). Amounts are in cents.
+ */
+public record CashCardSummaryChange(int cardCount, long totalAmount, long largestWritten, Long largestLowered) {
+
+    public static CashCardSummaryChange of(CashCardChangedEvent event) {
+        Long loweredFrom = event.amountDelta() < 0 ? event.amount() - event.amountDelta() : null;
+        return new CashCardSummaryChange(event.cardCountDelta(), event.amountDelta(), event.amount(), loweredFrom);
+    }
+
+    public CashCardSummaryChange plus(CashCardSummaryChange other) {
+        Long lowered = largestLowered == null ? other.largestLowered
+                : other.largestLowered == null ? largestLowered
+                : Long.valueOf(Math.max(largestLowered, other.largestLowered));
+        return new CashCardSummaryChange(cardCount + other.cardCount, totalAmount + other.totalAmount,
+                Math.max(largestWritten, other.largestWritten), lowered);
+    }
+}
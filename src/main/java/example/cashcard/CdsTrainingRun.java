@@ -0,0 +1,66 @@
+package example.cashcard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * With {@code cashcard.cds.training=true}, sends itself one authenticated
+ * {@code GET /cashcards} once ready and exits, so that a JVM started with
+ * {@code -XX:ArchiveClassesAtExit} records every class needed up to that first
+ * response, security and data access included, in its Class Data Sharing
+ * archive. The request is the one {@code StartupBenchmark} waits for. See the
+ * {@code cdsArchive} Gradle task.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(CdsTrainingRun.class);
+
+    private final boolean training;
+    private final String credentials;
+
+    CdsTrainingRun(@Value("${cashcard.cds.training}") boolean training,
+                   @Value("${cashcard.cds.training-username}") String username,
+                   @Value("${cashcard.cds.training-password}") String password) {
+        this.training = training;
+        this.credentials = Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!training) {
+            return;
+        }
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+        try {
+            HttpResponse<Void> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cashcards"))
+                            .header(HttpHeaders.AUTHORIZATION, "Basic " + credentials)
+                            .build(),
+                    HttpResponse.BodyHandlers.discarding());
+            log.info("CDS training request answered {}", response.statusCode());
+        } catch (IOException e) {
+            log.warn("CDS training request failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
@@ -0,0 +1,22 @@
+package example.cashcard;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code long}/{@code Long} amount held in minor units (cents). In JSON
+ * it is still a plain decimal number such as {@code 987.10}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@JacksonAnnotationsInside
+@JsonSerialize(using = CentsFormat.Serializer.class)
+@JsonDeserialize(using = CentsFormat.Deserializer.class)
+public @interface Cents {
+}
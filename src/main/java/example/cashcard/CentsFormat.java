@@ -0,0 +1,152 @@
+package example.cashcard;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+
+/**
+ * Converts between amounts in cents and their decimal text, working directly on
+ * the parser's character buffer and the generator's output: no {@code double},
+ * no {@code BigDecimal} and no intermediate {@code String} on the common path.
+ */
+final class CentsFormat {
+
+    /** Long.MIN_VALUE in cents: sign, 17 integer digits, point, 2 fraction digits. */
+    static final int MAX_LENGTH = 21;
+
+    private CentsFormat() {
+    }
+
+    /**
+     * Writes {@code cents} right-aligned into {@code buffer} as {@code [-]d+.dd}
+     * and returns the offset of the first character.
+     */
+    static int format(long cents, char[] buffer) {
+        int position = buffer.length;
+        // Work on the negative value so Long.MIN_VALUE needs no special case.
+        long rest = cents < 0 ? cents : -cents;
+        buffer[--position] = (char) ('0' - rest % 10);
+        rest /= 10;
+        buffer[--position] = (char) ('0' - rest % 10);
+        rest /= 10;
+        buffer[--position] = '.';
+        do {
+            buffer[--position] = (char) ('0' - rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        if (cents < 0) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    /**
+     * Parses {@code [-]d+[.d{0,2}0*]} into cents.
+     *
+     * @throws NumberFormatException if the text is not such a number, has
+     *                               non-zero digits below the cent, or overflows
+     */
+    static long parse(char[] text, int offset, int length) {
+        int end = offset + length;
+        int position = offset;
+        boolean negative = position < end && text[position] == '-';
+        if (negative) {
+            position++;
+        }
+        long units = 0;
+        int integerDigits = 0;
+        while (position < end && text[position] >= '0' && text[position] <= '9') {
+            units = Math.addExact(Math.multiplyExact(units, 10), text[position++] - '0');
+            integerDigits++;
+        }
+        int fraction = 0;
+        if (position < end && text[position] == '.') {
+            position++;
+            for (int digit = 0; position < end && text[position] >= '0' && text[position] <= '9'; digit++) {
+                int value = text[position++] - '0';
+                if (digit == 0) {
+                    fraction += value * 10;
+                } else if (digit == 1) {
+                    fraction += value;
+                } else if (value != 0) {
+                    throw new NumberFormatException("Amount has fractions of a cent");
+                }
+            }
+        }
+        if (integerDigits == 0 || position != end) {
+            throw new NumberFormatException("Not a decimal amount");
+        }
+        long cents = Math.addExact(Math.multiplyExact(units, 100), fraction);
+        return negative ? -cents : cents;
+    }
+
+    static final class Serializer extends StdSerializer<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            long cents = value;
+            long units = cents / 100;
+            if ((units == 0 && cents < 0) || generator instanceof TokenBuffer) {
+                // "-0.05" cannot be started with writeNumber(0), and token buffers take no raw text.
+                char[] buffer = new char[MAX_LENGTH];
+                int offset = format(cents, buffer);
+                generator.writeNumber(buffer, offset, buffer.length - offset);
+                return;
+            }
+            int fraction = (int) Math.abs(cents % 100);
+            generator.writeNumber(units);
+            generator.writeRaw('.');
+            generator.writeRaw((char) ('0' + fraction / 10));
+            generator.writeRaw((char) ('0' + fraction % 10));
+        }
+    }
+
+    static final class Deserializer extends StdDeserializer<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.currentToken();
+            try {
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    return Math.multiplyExact(parser.getLongValue(), 100);
+                }
+                if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_STRING) {
+                    try {
+                        return parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } catch (NumberFormatException e) {
+                        if (token != JsonToken.VALUE_NUMBER_FLOAT) {
+                            throw e;
+                        }
+                        // Exponent notation such as 1.5e2: rare enough to take the slow path.
+                        return parser.getDecimalValue().movePointRight(2).longValueExact();
+                    }
+                }
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw InvalidFormatException.from(parser,
+                        "Amount must be a decimal number with at most two fraction digits",
+                        parser.getText(), Long.class);
+            }
+            return (Long) context.handleUnexpectedToken(Long.class, parser);
+        }
+    }
+}
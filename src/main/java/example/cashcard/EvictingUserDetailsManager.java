@@ -0,0 +1,62 @@
+package example.cashcard;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Tells the credential cache about every user that is created, changed or
+ * removed, so a changed or revoked password stops authenticating at once
+ * instead of when the cached entry expires.
+ */
+public class EvictingUserDetailsManager implements UserDetailsManager {
+
+    private final UserDetailsManager delegate;
+    private final Consumer<String> evict;
+
+    public EvictingUserDetailsManager(UserDetailsManager delegate, Consumer<String> evict) {
+        this.delegate = delegate;
+        this.evict = evict;
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return delegate.loadUserByUsername(username);
+    }
+
+    @Override
+    public void createUser(UserDetails user) {
+        delegate.createUser(user);
+        evict.accept(user.getUsername());
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        delegate.updateUser(user);
+        evict.accept(user.getUsername());
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        delegate.deleteUser(username);
+        evict.accept(username);
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        delegate.changePassword(oldPassword, newPassword);
+        Authentication current = SecurityContextHolder.getContext().getAuthentication();
+        if (current != null) {
+            evict.accept(current.getName());
+        }
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        return delegate.userExists(username);
+    }
+}
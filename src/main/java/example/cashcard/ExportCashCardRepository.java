@@ -0,0 +1,8 @@
+package example.cashcard;
+
+import java.util.function.Consumer;
+
+public interface ExportCashCardRepository {
+
+    void forEachByOwner(@ShardKey String owner, int fetchSize, Consumer<CashCard> action);
+}
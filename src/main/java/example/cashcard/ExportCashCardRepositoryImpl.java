@@ -0,0 +1,37 @@
+package example.cashcard;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+/**
+ * Walks all cards of an owner over a forward-only, read-only cursor, handing
+ * rows to the caller as the driver fetches them instead of collecting a list.
+ * The transaction keeps the cursor open on drivers that only stream with
+ * auto-commit switched off.
+ */
+class ExportCashCardRepositoryImpl implements ExportCashCardRepository {
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    ExportCashCardRepositoryImpl(NamedParameterJdbcOperations jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachByOwner(String owner, int fetchSize, Consumer<CashCard> action) {
+        jdbc.getJdbcOperations().query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT ID, AMOUNT, OWNER, VERSION FROM cash_card WHERE OWNER = ? ORDER BY ID",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setString(1, owner);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(CashCardRowMapper.INSTANCE.mapRow(rs, rs.getRow())));
+    }
+}
@@ -0,0 +1,28 @@
+package example.cashcard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+/**
+ * Builds extra connection pools that share the credentials, driver and
+ * {@code spring.datasource.hikari.*} settings of the main datasource but point
+ * at another URL.
+ */
+final class HikariPools {
+
+    private HikariPools() {
+    }
+
+    static HikariDataSource create(DataSourceProperties properties, Environment environment, String url) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        return Binder.get(environment)
+                .bind("spring.datasource.hikari", Bindable.ofInstance(dataSource))
+                .orElse(dataSource);
+    }
+}
@@ -0,0 +1,8 @@
+package example.cashcard;
+
+import org.springframework.data.domain.Slice;
+
+public interface KeysetCashCardRepository {
+
+    Slice<CashCard> findByOwnerAfter(@ShardKey String owner, CashCardCursor cursor, int size);
+}
@@ -0,0 +1,72 @@
+package example.cashcard;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.util.List;
+
+/**
+ * Seek-based listing: each page continues strictly after the last row of the
+ * previous one, so the cost of a page does not depend on how deep it is and no
+ * COUNT query is needed. Served by the (OWNER, AMOUNT, ID) index.
+ */
+class KeysetCashCardRepositoryImpl implements KeysetCashCardRepository {
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    KeysetCashCardRepositoryImpl(NamedParameterJdbcOperations jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public Slice<CashCard> findByOwnerAfter(String owner, CashCardCursor cursor, int size) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("amount", cursor.amount())
+                .addValue("id", cursor.id())
+                .addValue("limit", size + 1);
+        return slice(jdbc.query(sql(cursor), params, CashCardRowMapper.INSTANCE), cursor, size);
+    }
+
+    /**
+     * The page query for {@code cursor}, with parameters {@code :owner} and
+     * {@code :limit}, plus {@code :id} and, when sorted by amount, {@code :amount}
+     * unless the cursor is the first. Shared with the reactive variant.
+     */
+    static String sql(CashCardCursor cursor) {
+        boolean descending = cursor.direction().isDescending();
+        String cmp = descending ? "<" : ">";
+        String dir = descending ? "DESC" : "ASC";
+        StringBuilder sql = new StringBuilder("SELECT ID, AMOUNT, OWNER, VERSION FROM cash_card WHERE OWNER = :owner");
+        if (!cursor.isFirst()) {
+            if (cursor.byAmount()) {
+                sql.append(" AND (AMOUNT ").append(cmp).append(" :amount OR (AMOUNT = :amount AND ID ")
+                        .append(cmp).append(" :id))");
+            } else {
+                sql.append(" AND ID ").append(cmp).append(" :id");
+            }
+        }
+        if (cursor.byAmount()) {
+            sql.append(" ORDER BY AMOUNT ").append(dir).append(", ID ").append(dir);
+        } else {
+            sql.append(" ORDER BY ID ").append(dir);
+        }
+        return sql.append(" LIMIT :limit").toString();
+    }
+
+    /**
+     * Turns the up to {@code size + 1} rows read by {@link #sql} into a page.
+     */
+    static Slice<CashCard> slice(List<CashCard> rows, CashCardCursor cursor, int size) {
+        boolean hasNext = rows.size() > size;
+        List<CashCard> content = hasNext ? rows.subList(0, size) : rows;
+        Sort sort = cursor.byAmount()
+                ? Sort.by(cursor.direction(), "amount", "id")
+                : Sort.by(cursor.direction(), "id");
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort), hasNext);
+    }
+}
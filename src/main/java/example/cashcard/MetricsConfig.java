@@ -0,0 +1,25 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MetricsConfig {
+
+    @Bean
+    CashCardOutcomeObservationConvention serverRequestObservationConvention() {
+        return new CashCardOutcomeObservationConvention();
+    }
+
+    @Bean
+    MeterBinder cacheMetrics(CachingAuthenticationProvider authenticationProvider, CashCardCache cashCardCache) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, authenticationProvider.cache(), "credentials");
+            CaffeineCacheMetrics.monitor(registry, cashCardCache.cache(), "cashCards");
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package example.cashcard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers which principals wrote recently, so their reads go to the primary
+ * until the replicas have caught up. The window should be longer than the
+ * replicas' usual lag. It is kept per instance: without sticky sessions a
+ * principal's next read may reach an instance that has not seen the write.
+ */
+class ReadYourWritesWindow {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    ReadYourWritesWindow(Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    void onCashCardChanged(CashCardChangedEvent event) {
+        recentWriters.put(event.owner(), Boolean.TRUE);
+    }
+
+    boolean isOpenForCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && recentWriters.getIfPresent(authentication.getName()) != null;
+    }
+}
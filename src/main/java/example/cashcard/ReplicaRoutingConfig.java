@@ -0,0 +1,65 @@
+package example.cashcard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits database traffic between the primary ({@code spring.datasource.*}) and
+ * the replicas listed in {@code cashcard.replicas.urls}. Read-only transactions,
+ * which the GET handlers and the export run in, go to the replicas; see
+ * {@link ReplicaRoutingDataSource}. Every pool, primary and replicas alike, is
+ * configured from {@code spring.datasource.hikari.*}. Keep
+ * {@code cashcard.replicas.max-lag} below the read-your-writes window, so a
+ * principal whose window has closed reads from a replica that has their write.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cashcard.replicas", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    ReadYourWritesWindow readYourWritesWindow(
+            @Value("${cashcard.replicas.read-your-writes-window}") Duration window) {
+        return new ReadYourWritesWindow(window);
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+                                                      Environment environment,
+                                                      ReadYourWritesWindow readYourWritesWindow,
+                                                      @Value("${cashcard.replicas.urls}") List<String> replicaUrls,
+                                                      @Value("${cashcard.replicas.failover-cooldown}") Duration failoverCooldown,
+                                                      @Value("${cashcard.replicas.max-lag}") Duration maxLag,
+                                                      @Value("${cashcard.replicas.probe-interval}") Duration probeInterval) {
+        HikariDataSource primary = HikariPools.create(properties, environment, properties.determineUrl());
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = HikariPools.create(properties, environment, replicaUrls.get(i));
+            replica.setPoolName("replica-" + i);
+            // A replica that is down at startup must not keep the application from starting.
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesWindow, failoverCooldown,
+                maxLag, probeInterval);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,206 @@
+package example.cashcard;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands out replica connections to read-only transactions and primary
+ * connections to everything else. Replicas are taken round-robin; one that fails
+ * to produce a connection is skipped for the failover cooldown, and if no
+ * replica is available the read goes to the primary. Principals inside their
+ * {@link ReadYourWritesWindow}, and reads inside {@link #readFromPrimary}, always
+ * read from the primary.
+ *
+ * <p>A probe thread checks every replica each probe interval, so requests never
+ * wait on a dead replica's connection timeout. It writes the current time to the
+ * primary's {@code replica_heartbeat} row and reads that row back from each
+ * replica: a replica is used only once it answers and its heartbeat is less than
+ * the maximum lag behind, measured to within one probe interval. Until its first
+ * successful probe a replica is not used.
+ *
+ * <p>Must be used through a {@link LazyConnectionDataSourceProxy}: whether a
+ * transaction is read-only is only known after it has begun, which is later than
+ * the transaction manager asks for its connection.
+ */
+class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Log logger = LogFactory.getLog(ReplicaRoutingDataSource.class);
+
+    static final String WRITE_HEARTBEAT = "MERGE INTO replica_heartbeat KEY (ID) VALUES (1, ?)";
+
+    static final String READ_HEARTBEAT = "SELECT BEAT_AT FROM replica_heartbeat WHERE ID = 1";
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReadYourWritesWindow readYourWritesWindow;
+    private final long failoverCooldownNanos;
+    private final long maxLagMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService prober;
+    private long lastBeat = -1;
+
+    ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                             ReadYourWritesWindow readYourWritesWindow, Duration failoverCooldown,
+                             Duration maxLag, Duration probeInterval) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.failoverCooldownNanos = failoverCooldown.toNanos();
+        this.maxLagMillis = maxLag.toMillis();
+        this.prober = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prober.scheduleWithFixedDelay(this::probe, 0, probeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs {@code read} against the primary even in a read-only transaction, for
+     * reads whose result outlives the request, such as cache fills.
+     */
+    static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean outer = primaryOnly.get();
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (outer == null) {
+                primaryOnly.remove();
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || primaryOnly.get() != null
+                || readYourWritesWindow.isOpenForCurrentPrincipal()) {
+            return primary.getConnection();
+        }
+        long now = System.nanoTime();
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (!replica.isAvailable(now)) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.downUntilNanos = now + failoverCooldownNanos;
+                replica.down = true;
+                logger.warn("Taking " + replica.name + " out of rotation for "
+                        + Duration.ofNanos(failoverCooldownNanos) + ": " + e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Reads every replica's heartbeat, then writes a new one to the primary.
+     */
+    void probe() {
+        long beat = System.currentTimeMillis();
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(READ_HEARTBEAT);
+                 ResultSet resultSet = statement.executeQuery()) {
+                long lagMillis;
+                if (!resultSet.next()) {
+                    lagMillis = Long.MAX_VALUE;
+                } else {
+                    long replicaBeat = resultSet.getLong(1);
+                    lagMillis = lastBeat >= 0 && replicaBeat >= lastBeat ? 0 : beat - replicaBeat;
+                }
+                replica.update(lagMillis <= maxLagMillis,
+                        lagMillis <= maxLagMillis ? null : "lagging more than " + Duration.ofMillis(maxLagMillis));
+            } catch (SQLException e) {
+                replica.update(false, e.getMessage());
+            } catch (RuntimeException e) {
+                replica.update(false, e.toString());
+            }
+        }
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement(WRITE_HEARTBEAT)) {
+            statement.setLong(1, beat);
+            statement.executeUpdate();
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            lastBeat = beat;
+        } catch (SQLException e) {
+            logger.warn("Cannot write the replica heartbeat to the primary: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Routing uses the credentials of the underlying pools");
+    }
+
+    @Override
+    public void close() throws IOException {
+        prober.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class Replica {
+
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy;
+        volatile boolean down;
+        volatile long downUntilNanos;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        boolean isAvailable(long now) {
+            return healthy && (!down || now - downUntilNanos >= 0);
+        }
+
+        void update(boolean healthy, String reason) {
+            if (healthy && !this.healthy) {
+                logger.info("Putting " + name + " into rotation");
+                down = false;
+            } else if (!healthy && this.healthy) {
+                logger.warn("Taking " + name + " out of rotation: " + reason);
+            }
+            this.healthy = healthy;
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package example.cashcard;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.User;
@@ -10,17 +15,28 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.time.Duration;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
     @Bean
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain filterChain(HttpSecurity http,
+                                    ObjectProvider<AdmissionControlFilter> admissionControlFilter) throws Exception {
+        admissionControlFilter.ifAvailable(filter -> http.addFilterBefore(filter, BasicAuthenticationFilter.class));
         http
                 .authorizeHttpRequests(request -> request
                         .requestMatchers("/cashcards/**")
-                        .hasRole("CARD-OWNER"))
+                        .hasRole("CARD-OWNER")
+                        .requestMatchers("/actuator/prometheus")
+                        .hasRole("METRICS")
+                        .requestMatchers("/actuator/health")
+                        .permitAll())
                 .csrf(csrf -> csrf.disable())
                 .httpBasic(Customizer.withDefaults());
         return http.build();
@@ -32,7 +48,26 @@ public class SecurityConfig {
     }
 
     @Bean
-    UserDetailsService testOnlyUsers(PasswordEncoder passwordEncoder) {
+    CachingAuthenticationProvider authenticationProvider(
+            UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${cashcard.security.credential-cache.maximum-size}") long maximumSize,
+            @Value("${cashcard.security.credential-cache.ttl}") Duration ttl) {
+        DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
+        authenticationProvider.setUserDetailsService(userDetailsService);
+        authenticationProvider.setPasswordEncoder(new TimedPasswordEncoder(passwordEncoder, meterRegistry));
+        return new CachingAuthenticationProvider(authenticationProvider, maximumSize, ttl);
+    }
+
+    @Bean
+    UserDetailsManager testOnlyUsers(PasswordEncoder passwordEncoder,
+                                     ObjectProvider<CachingAuthenticationProvider> authenticationProvider) {
+        return new EvictingUserDetailsManager(new InMemoryUserDetailsManager(testOnlyUserDetails(passwordEncoder)),
+                username -> authenticationProvider.ifAvailable(provider -> provider.evict(username)));
+    }
+
+    static UserDetails[] testOnlyUserDetails(PasswordEncoder passwordEncoder) {
         User.UserBuilder users = User.builder();
         UserDetails harlik = users
                 .username("harlik")
@@ -49,6 +84,11 @@ public class SecurityConfig {
                 .password(passwordEncoder.encode("789sdf"))
                 .roles("CARD-OWNER")
                 .build();
-        return new InMemoryUserDetailsManager(harlik, alex, galinaOwnsNoCards);
+        UserDetails metricsScraper = users
+                .username("prometheus")
+                .password(passwordEncoder.encode("scrape123"))
+                .roles("METRICS")
+                .build();
+        return new UserDetails[]{harlik, alex, galinaOwnsNoCards, metricsScraper};
     }
 }
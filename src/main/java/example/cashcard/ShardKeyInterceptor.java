@@ -0,0 +1,71 @@
+package example.cashcard;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps {@link CashCardRepository} so the shard is chosen by the owner a call is
+ * about: the argument annotated with {@link ShardKey}, or the owner of a
+ * {@link CashCard} being saved. The owner is bound to the thread for the duration of the call and
+ * read by {@link ShardRoutingDataSource}.
+ */
+class ShardKeyInterceptor implements MethodInterceptor {
+
+    private static final ThreadLocal<String> currentOwner = new ThreadLocal<>();
+
+    private final Map<Method, Integer> shardKeyPositions = new ConcurrentHashMap<>();
+
+    static String currentOwner() {
+        return currentOwner.get();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        String owner = ownerOf(invocation);
+        if (owner == null) {
+            return invocation.proceed();
+        }
+        String previous = currentOwner.get();
+        currentOwner.set(owner);
+        try {
+            return invocation.proceed();
+        } finally {
+            if (previous != null) {
+                currentOwner.set(previous);
+            } else {
+                currentOwner.remove();
+            }
+        }
+    }
+
+    private String ownerOf(MethodInvocation invocation) {
+        Object[] arguments = invocation.getArguments();
+        int position = shardKeyPositions.computeIfAbsent(invocation.getMethod(), ShardKeyInterceptor::shardKeyPosition);
+        if (position >= 0) {
+            return (String) arguments[position];
+        }
+        for (Object argument : arguments) {
+            if (argument instanceof CashCard cashCard) {
+                return cashCard.owner();
+            }
+        }
+        return null;
+    }
+
+    private static int shardKeyPosition(Method method) {
+        Annotation[][] annotations = method.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
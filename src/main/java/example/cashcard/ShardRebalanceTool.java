@@ -0,0 +1,40 @@
+package example.cashcard;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point for {@link ShardRebalancer}, run with the same shard
+ * list as {@code cashcard.shards.urls} after a shard has been appended to it:
+ *
+ * <pre>
+ * ShardRebalanceTool &lt;comma separated JDBC URLs&gt; [virtual nodes]
+ * </pre>
+ *
+ * Credentials are taken from the {@code shards.username} and
+ * {@code shards.password} system properties.
+ */
+public final class ShardRebalanceTool {
+
+    private ShardRebalanceTool() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args[0].isBlank()) {
+            System.err.println("Usage: ShardRebalanceTool <comma separated JDBC URLs> [virtual nodes]");
+            System.exit(2);
+        }
+        String username = System.getProperty("shards.username", "sa");
+        String password = System.getProperty("shards.password", "");
+        List<DataSource> shards = new ArrayList<>();
+        for (String url : args[0].split(",")) {
+            shards.add(new DriverManagerDataSource(url.trim(), username, password));
+        }
+        int virtualNodes = args.length > 1 ? Integer.parseInt(args[1]) : ShardRing.DEFAULT_VIRTUAL_NODES;
+        int moved = new ShardRebalancer(shards, new ShardRing(shards.size(), virtualNodes)).rebalance();
+        System.out.println("Moved " + moved + " owner(s) across " + shards.size() + " shard(s).");
+    }
+}
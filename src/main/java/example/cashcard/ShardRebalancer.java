@@ -0,0 +1,87 @@
+package example.cashcard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves every owner whose cards sit on a shard other than the one the ring
+ * assigns them to, typically after a shard has been appended to the list. Cards
+ * keep their ids and versions, and the owner summary moves with them.
+ *
+ * <p>An owner is first copied to its new shard and only then deleted from the
+ * old one, each step in its own transaction, so a run that stops half way can
+ * simply be repeated. Writes must be stopped while it runs: the application
+ * already routes by the new ring, and a write landing on either copy between
+ * the two steps would be lost or duplicated.
+ */
+class ShardRebalancer {
+
+    private final List<JdbcTemplate> shards = new ArrayList<>();
+    private final List<TransactionTemplate> transactions = new ArrayList<>();
+    private final ShardRing ring;
+
+    ShardRebalancer(List<DataSource> shards, ShardRing ring) {
+        if (shards.size() != ring.size()) {
+            throw new IllegalArgumentException("Ring has " + ring.size() + " shards but " + shards.size() + " were given");
+        }
+        for (DataSource shard : shards) {
+            this.shards.add(new JdbcTemplate(shard));
+            this.transactions.add(new TransactionTemplate(new DataSourceTransactionManager(shard)));
+        }
+        this.ring = ring;
+    }
+
+    /**
+     * Returns the number of owners moved.
+     */
+    int rebalance() {
+        int moved = 0;
+        for (int source = 0; source < shards.size(); source++) {
+            for (String owner : shards.get(source).queryForList("SELECT DISTINCT OWNER FROM cash_card", String.class)) {
+                int target = ring.shardFor(owner);
+                if (target != source) {
+                    move(owner, source, target);
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    private void move(String owner, int source, int target) {
+        JdbcTemplate from = shards.get(source);
+        JdbcTemplate to = shards.get(target);
+        transactions.get(target).executeWithoutResult(status -> {
+            List<Object[]> cards = from.query("SELECT ID, AMOUNT, OWNER, VERSION FROM cash_card WHERE OWNER = ?",
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4)},
+                    owner);
+            to.batchUpdate("MERGE INTO cash_card (ID, AMOUNT, OWNER, VERSION) KEY (ID) VALUES (?, ?, ?, ?)", cards);
+            // REVISION moves past both copies so ETags handed out before the move do not match afterwards.
+            from.query("SELECT REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT FROM cash_card_owner_summary "
+                            + "WHERE OWNER = ?",
+                    rs -> {
+                        to.update("MERGE INTO cash_card_owner_summary s "
+                                        + "USING (VALUES (CAST(? AS VARCHAR(256)), CAST(? AS BIGINT), "
+                                        + "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+                                        + "AS v (OWNER, REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT) "
+                                        + "ON s.OWNER = v.OWNER "
+                                        + "WHEN MATCHED THEN UPDATE SET REVISION = GREATEST(s.REVISION, v.REVISION) + 1, "
+                                        + "CARD_COUNT = v.CARD_COUNT, TOTAL_AMOUNT = v.TOTAL_AMOUNT, "
+                                        + "LARGEST_AMOUNT = v.LARGEST_AMOUNT "
+                                        + "WHEN NOT MATCHED THEN INSERT (OWNER, REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT) "
+                                        + "VALUES (v.OWNER, v.REVISION + 1, v.CARD_COUNT, v.TOTAL_AMOUNT, v.LARGEST_AMOUNT)",
+                                owner, rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getObject(4));
+                    },
+                    owner);
+        });
+        transactions.get(source).executeWithoutResult(status -> {
+            from.update("DELETE FROM cash_card WHERE OWNER = ?", owner);
+            from.update("DELETE FROM cash_card_owner_summary WHERE OWNER = ?", owner);
+        });
+    }
+}
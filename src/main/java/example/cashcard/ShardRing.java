@@ -0,0 +1,75 @@
+package example.cashcard;
+
+import java.util.Arrays;
+
+/**
+ * Consistent-hash ring over shards {@code 0..n-1}. Every shard owns many points
+ * on the ring, so appending a shard moves only about {@code 1/(n+1)} of the
+ * owners, taken evenly from all existing shards. Shards are identified by their
+ * position in the configured list, which may therefore only be appended to.
+ */
+final class ShardRing {
+
+    /**
+     * Matches the default of {@code cashcard.shards.virtual-nodes}.
+     */
+    static final int DEFAULT_VIRTUAL_NODES = 64;
+
+    private final int shardCount;
+    private final long[] points;
+    private final int[] shards;
+
+    ShardRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || shardCount > ShardedIdGenerator.MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 1 and "
+                    + ShardedIdGenerator.MAX_SHARDS + ", got " + shardCount);
+        }
+        this.shardCount = shardCount;
+        int size = shardCount * virtualNodes;
+        long[][] entries = new long[size][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                entries[shard * virtualNodes + node] = new long[]{hash("shard-" + shard + "#" + node), shard};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[size];
+        this.shards = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            shards[i] = (int) entries[i][1];
+        }
+    }
+
+    int shardFor(String owner) {
+        int index = Arrays.binarySearch(points, hash(owner));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return shards[index == points.length ? 0 : index];
+    }
+
+    int size() {
+        return shardCount;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units, finished with the MurmurHash3
+     * mixer. Stable across JVMs and releases, unlike {@link String#hashCode()}
+     * spread over 64 bits.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,67 @@
+package example.cashcard;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the shard of the owner the current repository call is about (see
+ * {@link ShardKeyInterceptor}), falling back to the authenticated principal, and
+ * to the first shard for work that belongs to no owner, such as health checks.
+ *
+ * <p>Used through a {@link LazyConnectionDataSourceProxy} so a transaction binds
+ * its connection at the first statement, once the owner is known. A transaction
+ * stays on that shard; one transaction cannot span owners on different shards.
+ */
+class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<DataSource> shards;
+    private final ShardRing ring;
+
+    ShardRoutingDataSource(List<DataSource> shards, ShardRing ring) {
+        this.shards = List.copyOf(shards);
+        this.ring = ring;
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String owner = ShardKeyInterceptor.currentOwner();
+        if (owner == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            owner = authentication != null ? authentication.getName() : null;
+        }
+        return owner != null ? ring.shardFor(owner) : null;
+    }
+
+    List<DataSource> shards() {
+        return shards;
+    }
+
+    ShardRing ring() {
+        return ring;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource shard : shards) {
+            if (shard instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package example.cashcard;
+
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.util.List;
+
+/**
+ * Hands out card ids that are unique across shards: a value of the owner's
+ * shard's {@code cash_card_id_seq}, times {@link #MAX_SHARDS}, plus the shard's
+ * index. A card keeps its id when {@link ShardRebalancer} moves it, and ids stay
+ * well inside the range JSON clients can hold in a double.
+ */
+class ShardedIdGenerator {
+
+    static final int MAX_SHARDS = 1024;
+
+    private final JdbcOperations jdbc;
+    private final ShardRing ring;
+
+    ShardedIdGenerator(JdbcOperations jdbc, ShardRing ring) {
+        this.jdbc = jdbc;
+        this.ring = ring;
+    }
+
+    /**
+     * Must be called while the owner's shard is the routing target, i.e. from
+     * within a repository call for that owner.
+     */
+    List<Long> nextIds(String owner, int count) {
+        long shard = ring.shardFor(owner);
+        return jdbc.queryForList("SELECT NEXT VALUE FOR cash_card_id_seq FROM SYSTEM_RANGE(1, ?)", Long.class, count)
+                .stream()
+                .map(value -> value * MAX_SHARDS + shard)
+                .toList();
+    }
+}
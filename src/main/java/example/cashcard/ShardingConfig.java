@@ -0,0 +1,149 @@
+package example.cashcard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.data.relational.core.mapping.event.BeforeConvertCallback;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads cash cards over the databases listed in {@code cashcard.shards.urls},
+ * each holding every card of the owners the {@link ShardRing} assigns to it.
+ * {@link CashCardRepository} calls are routed by the owner they are about; see
+ * {@link ShardRoutingDataSource}. Ids come from {@link ShardedIdGenerator} so
+ * they stay unique across shards. Every shard gets the schema scripts of
+ * {@code spring.sql.init.*}, the rows of the data scripts land on their owners'
+ * shards, and every shard has a pool configured from
+ * {@code spring.datasource.hikari.*}.
+ *
+ * <p>Shards may only be appended to the list; run {@link ShardRebalanceTool}
+ * after doing so. Cannot be combined with {@code cashcard.replicas.enabled}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cashcard.shards", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties properties,
+                                                  Environment environment,
+                                                  @Value("${cashcard.shards.urls}") List<String> shardUrls,
+                                                  @Value("${cashcard.shards.virtual-nodes}") int virtualNodes) {
+        List<DataSource> shards = new ArrayList<>(shardUrls.size());
+        for (int i = 0; i < shardUrls.size(); i++) {
+            HikariDataSource shard = HikariPools.create(properties, environment, shardUrls.get(i));
+            shard.setPoolName("shard-" + i);
+            shards.add(shard);
+        }
+        return new ShardRoutingDataSource(shards, new ShardRing(shards.size(), virtualNodes));
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource,
+                                                  SqlInitializationProperties properties) {
+        return new ShardSchemaInitializer(shardRoutingDataSource.shards(), shardRoutingDataSource.ring(), properties);
+    }
+
+    @Bean
+    ShardedIdGenerator shardedIdGenerator(JdbcOperations jdbcOperations, ShardRoutingDataSource shardRoutingDataSource) {
+        return new ShardedIdGenerator(jdbcOperations, shardRoutingDataSource.ring());
+    }
+
+    @Bean
+    BeforeConvertCallback<CashCard> shardedIdAssigner(ShardedIdGenerator shardedIdGenerator) {
+        return cashCard -> cashCard.id() != null ? cashCard
+                : new CashCard(shardedIdGenerator.nextIds(cashCard.owner(), 1).get(0),
+                cashCard.amount(), cashCard.owner(), cashCard.version());
+    }
+
+    @Bean
+    static BeanPostProcessor shardKeyRepositoryCustomizer() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+                        && CashCardRepository.class.equals(factoryBean.getObjectType())) {
+                    ShardKeyInterceptor interceptor = new ShardKeyInterceptor();
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, interceptor)));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Runs the schema scripts against every shard, and the data scripts against
+     * the first one only, whose rows the {@link ShardRebalancer} then moves to
+     * their owners' shards. Being a {@link SqlDataSourceScriptDatabaseInitializer}
+     * it takes the place of the one Spring Boot would otherwise run against the
+     * routing datasource.
+     */
+    static class ShardSchemaInitializer extends SqlDataSourceScriptDatabaseInitializer {
+
+        private final List<SqlDataSourceScriptDatabaseInitializer> schemas;
+        private final SqlDataSourceScriptDatabaseInitializer data;
+        private final ShardRebalancer rebalancer;
+
+        ShardSchemaInitializer(List<DataSource> shards, ShardRing ring, SqlInitializationProperties properties) {
+            super(shards.get(0), properties);
+            SqlInitializationProperties schemaOnly = copyOf(properties);
+            schemaOnly.setDataLocations(List.of());
+            SqlInitializationProperties dataOnly = copyOf(properties);
+            dataOnly.setSchemaLocations(List.of());
+            this.schemas = shards.stream()
+                    .map(shard -> new SqlDataSourceScriptDatabaseInitializer(shard, schemaOnly))
+                    .toList();
+            this.data = new SqlDataSourceScriptDatabaseInitializer(shards.get(0), dataOnly);
+            this.rebalancer = new ShardRebalancer(shards, ring);
+        }
+
+        @Override
+        public boolean initializeDatabase() {
+            boolean initialized = false;
+            for (SqlDataSourceScriptDatabaseInitializer schema : schemas) {
+                initialized |= schema.initializeDatabase();
+            }
+            if (data.initializeDatabase()) {
+                rebalancer.rebalance();
+                initialized = true;
+            }
+            return initialized;
+        }
+
+        private static SqlInitializationProperties copyOf(SqlInitializationProperties properties) {
+            SqlInitializationProperties copy = new SqlInitializationProperties();
+            copy.setSchemaLocations(properties.getSchemaLocations());
+            copy.setDataLocations(properties.getDataLocations());
+            copy.setPlatform(properties.getPlatform());
+            copy.setUsername(properties.getUsername());
+            copy.setPassword(properties.getPassword());
+            copy.setContinueOnError(properties.isContinueOnError());
+            copy.setSeparator(properties.getSeparator());
+            copy.setEncoding(properties.getEncoding());
+            copy.setMode(properties.getMode());
+            return copy;
+        }
+    }
+}
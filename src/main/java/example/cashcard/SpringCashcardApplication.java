@@ -2,8 +2,10 @@ package example.cashcard;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(CashCardRuntimeHints.class)
 //@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
 public class SpringCashcardApplication {
 
@@ -0,0 +1,8 @@
+package example.cashcard;
+
+public interface SummaryCashCardRepository {
+
+    CashCardSummary findSummaryByOwner(@ShardKey String owner);
+
+    void applyToSummary(@ShardKey String owner, CashCardSummaryChange change);
+}
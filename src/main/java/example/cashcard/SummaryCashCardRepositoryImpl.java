@@ -0,0 +1,86 @@
+package example.cashcard;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Keeps one cash_card_owner_summary row per owner. Count and total move by the
+ * deltas of each write, and the largest amount by the largest balance written.
+ * Only when a write lowers the card holding the largest amount is it re-read
+ * from the owner's range of the (OWNER, AMOUNT, ID) index. summary-backfill.sql
+ * creates the rows of owners whose cards predate the table, so an owner without
+ * a row has no cards.
+ */
+class SummaryCashCardRepositoryImpl implements SummaryCashCardRepository {
+
+    static final String UPDATE = "UPDATE cash_card_owner_summary SET REVISION = REVISION + 1, "
+            + "CARD_COUNT = CARD_COUNT + :cardCount, "
+            + "TOTAL_AMOUNT = TOTAL_AMOUNT + :totalAmount, "
+            + "LARGEST_AMOUNT = CASE "
+            + "WHEN LARGEST_AMOUNT <= :largestLowered THEN (SELECT MAX(AMOUNT) FROM cash_card WHERE OWNER = :owner) "
+            + "WHEN LARGEST_AMOUNT IS NULL OR LARGEST_AMOUNT < :largestWritten THEN :largestWritten "
+            + "ELSE LARGEST_AMOUNT END "
+            + "WHERE OWNER = :owner";
+
+    static final String INSERT = "INSERT INTO cash_card_owner_summary "
+            + "(OWNER, REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT) "
+            + "VALUES (:owner, 1, :cardCount, :totalAmount, :largestWritten)";
+
+    private final NamedParameterJdbcOperations jdbc;
+
+    SummaryCashCardRepositoryImpl(NamedParameterJdbcOperations jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CashCardSummary findSummaryByOwner(String owner) {
+        List<CashCardSummary> summaries = jdbc.query(
+                "SELECT CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT FROM cash_card_owner_summary WHERE OWNER = :owner",
+                new MapSqlParameterSource("owner", owner), (rs, rowNum) -> mapSummary(rs));
+        return summaries.isEmpty() ? new CashCardSummary(0, 0, null) : summaries.get(0);
+    }
+
+    @Override
+    @Transactional
+    public void applyToSummary(String owner, CashCardSummaryChange change) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("owner", owner)
+                .addValue("cardCount", change.cardCount())
+                .addValue("totalAmount", change.totalAmount())
+                .addValue("largestWritten", change.largestWritten())
+                .addValue("largestLowered", change.largestLowered(), Types.BIGINT);
+        if (jdbc.update(UPDATE, parameters) > 0) {
+            return;
+        }
+        // The owner's first card. A concurrent first write may insert the row
+        // first; this one then rolls its insert back and updates that row instead.
+        boolean inserted = jdbc.getJdbcOperations().execute((ConnectionCallback<Boolean>) con -> {
+            Savepoint beforeInsert = con.setSavepoint();
+            try {
+                jdbc.update(INSERT, parameters);
+                return true;
+            } catch (DuplicateKeyException e) {
+                con.rollback(beforeInsert);
+                return false;
+            }
+        });
+        if (!inserted) {
+            jdbc.update(UPDATE, parameters);
+        }
+    }
+
+    private static CashCardSummary mapSummary(ResultSet rs) throws SQLException {
+        return new CashCardSummary(rs.getLong("CARD_COUNT"), rs.getLong("TOTAL_AMOUNT"),
+                rs.getObject("LARGEST_AMOUNT", Long.class));
+    }
+}
@@ -0,0 +1,57 @@
+package example.cashcard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * One token bucket per key, each refilling at {@code ratePerSecond} up to
+ * {@code burst} tokens. A bucket is a single {@link AtomicLong} holding the
+ * time at which it will be full again (the generic cell rate algorithm), so
+ * taking a token is one compare-and-set and never blocks. Buckets of keys not
+ * seen for {@code idleTimeout} are dropped; a returning key starts full.
+ */
+class TokenBuckets {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+
+    TokenBuckets(double ratePerSecond, int burst, long maximumSize, Duration idleTimeout, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from the key's bucket. Returns {@code 0} if one was taken,
+     * otherwise how many nanoseconds until one will be available.
+     */
+    long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            long start = fullAt - now > 0 ? fullAt : now;
+            long wait = start - burstToleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
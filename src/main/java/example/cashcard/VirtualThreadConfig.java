@@ -0,0 +1,59 @@
+package example.cashcard;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs Tomcat request handling, and with it every BCrypt check and JDBC call
+ * made on the request thread, on virtual threads. Async MVC work (such as the
+ * NDJSON export) uses virtual threads too. Concurrency is then no longer capped
+ * by a thread pool; the JDBC connection pool
+ * ({@code spring.datasource.hikari.maximum-pool-size}) is the limit that matters.
+ *
+ * <p>Requires Java 21 or later. The project still compiles for Java 17, so the
+ * executor is obtained reflectively.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "cashcard.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig implements DisposableBean {
+
+    private final ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreads);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(virtualThreads);
+    }
+
+    @Override
+    public void destroy() {
+        virtualThreads.shutdown();
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("cashcard.threads.virtual.enabled requires Java 21 or later, but running on "
+                    + Runtime.version());
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+}
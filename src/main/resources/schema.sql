@@ -1,6 +1,29 @@
 CREATE TABLE cash_card
 (
     ID     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    AMOUNT NUMBER NOT NULL DEFAULT 0,
-    OWNER VARCHAR(256) NOT NULL
+    AMOUNT BIGINT NOT NULL DEFAULT 0,
+    OWNER VARCHAR(256) NOT NULL,
+    VERSION BIGINT NOT NULL DEFAULT 0
+);
+
+-- Feeds the ids of sharded deployments; see ShardedIdGenerator.
+CREATE SEQUENCE cash_card_id_seq;
+
+CREATE INDEX cash_card_owner_amount_id ON cash_card (OWNER, AMOUNT, ID);
+
+CREATE TABLE cash_card_owner_summary
+(
+    OWNER          VARCHAR(256) PRIMARY KEY,
+    REVISION       BIGINT NOT NULL DEFAULT 0,
+    CARD_COUNT     BIGINT NOT NULL DEFAULT 0,
+    TOTAL_AMOUNT   BIGINT NOT NULL DEFAULT 0,
+    LARGEST_AMOUNT BIGINT
+);
+
+-- Written on the primary and read back from each replica to measure its lag;
+-- see ReplicaRoutingDataSource.
+CREATE TABLE replica_heartbeat
+(
+    ID      INT PRIMARY KEY,
+    BEAT_AT BIGINT NOT NULL
 );
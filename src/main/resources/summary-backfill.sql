@@ -0,0 +1,7 @@
+-- Runs after the data scripts: gives every owner whose cards predate
+-- cash_card_owner_summary a row, so summaries never have to be aggregated on read.
+INSERT INTO cash_card_owner_summary (OWNER, REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT)
+SELECT OWNER, 0, COUNT(*), SUM(AMOUNT), MAX(AMOUNT)
+FROM cash_card c
+WHERE NOT EXISTS (SELECT 1 FROM cash_card_owner_summary s WHERE s.OWNER = c.OWNER)
+GROUP BY OWNER;
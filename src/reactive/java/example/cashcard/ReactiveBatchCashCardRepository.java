@@ -0,0 +1,20 @@
+package example.cashcard;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveBatchCashCardRepository {
+
+    /**
+     * Creates the owner's cards, reporting per element whether it was created
+     * ({@code 201}, with its new id) or rejected ({@code 400}).
+     */
+    Mono<List<BatchItemResult>> insertAll(String owner, List<BatchItem> cashCards);
+
+    /**
+     * Sets the amounts of the owner's cards, reporting per element whether it was
+     * updated ({@code 204}), rejected ({@code 400}) or not found ({@code 404}).
+     */
+    Mono<List<BatchItemResult>> updateAll(String owner, List<BatchItem> cashCards);
+}
@@ -0,0 +1,119 @@
+package example.cashcard;
+
+import io.r2dbc.spi.Statement;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * R2DBC counterpart of {@link BatchCashCardRepositoryImpl}: the rows of a call
+ * are bound to one statement and sent in a single round trip. Runs in the
+ * caller's transaction.
+ */
+class ReactiveBatchCashCardRepositoryImpl implements ReactiveBatchCashCardRepository {
+
+    private final DatabaseClient databaseClient;
+
+    ReactiveBatchCashCardRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> insertAll(String owner, List<BatchItem> cashCards) {
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < cashCards.size(); i++) {
+            if (cashCards.get(i) != null && cashCards.get(i).amount() != null) {
+                accepted.add(i);
+            }
+        }
+        Mono<List<Long>> inserted = accepted.isEmpty() ? Mono.just(List.of()) : databaseClient.inConnection(con -> {
+            Statement insert = con.createStatement("INSERT INTO cash_card (AMOUNT, OWNER) VALUES ($1, $2)")
+                    .returnGeneratedValues("ID");
+            for (int i = 0; i < accepted.size(); i++) {
+                if (i > 0) {
+                    insert.add();
+                }
+                insert.bind(0, cashCards.get(accepted.get(i)).amount()).bind(1, owner);
+            }
+            return Flux.from(insert.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get("ID", Long.class)))
+                    .collectList();
+        });
+        return inserted.map(ids -> {
+            if (ids.size() != accepted.size()) {
+                throw new DataRetrievalFailureException("Driver returned no generated key for an inserted cash card");
+            }
+            List<BatchItemResult> results = new ArrayList<>(cashCards.size());
+            int next = 0;
+            for (int i = 0; i < cashCards.size(); i++) {
+                if (next < accepted.size() && accepted.get(next) == i) {
+                    results.add(new BatchItemResult(i, ids.get(next++), HttpStatus.CREATED.value(),
+                            cashCards.get(i).amount()));
+                } else {
+                    results.add(new BatchItemResult(i, null, HttpStatus.BAD_REQUEST.value()));
+                }
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public Mono<List<BatchItemResult>> updateAll(String owner, List<BatchItem> cashCards) {
+        List<Long> requestedIds = cashCards.stream()
+                .filter(Objects::nonNull)
+                .map(BatchItem::id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        // Current amounts of the owned cards, locked so the deltas stay exact until commit.
+        Mono<Map<Long, Long>> locked = requestedIds.isEmpty() ? Mono.just(new HashMap<>()) : databaseClient
+                .sql("SELECT ID, AMOUNT FROM cash_card WHERE OWNER = :owner AND ID IN (:ids) FOR UPDATE")
+                .bind("owner", owner)
+                .bind("ids", requestedIds)
+                .map(row -> Map.entry(row.get("ID", Long.class), row.get("AMOUNT", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, HashMap::new);
+        return locked.flatMap(amounts -> {
+            List<BatchItemResult> results = new ArrayList<>(cashCards.size());
+            List<BatchItem> updates = new ArrayList<>();
+            for (int i = 0; i < cashCards.size(); i++) {
+                BatchItem cashCard = cashCards.get(i);
+                if (cashCard == null || cashCard.id() == null || cashCard.amount() == null) {
+                    results.add(new BatchItemResult(i, cashCard != null ? cashCard.id() : null,
+                            HttpStatus.BAD_REQUEST.value()));
+                } else if (!amounts.containsKey(cashCard.id())) {
+                    results.add(new BatchItemResult(i, cashCard.id(), HttpStatus.NOT_FOUND.value()));
+                } else {
+                    updates.add(cashCard);
+                    long previous = amounts.put(cashCard.id(), cashCard.amount());
+                    results.add(new BatchItemResult(i, cashCard.id(), HttpStatus.NO_CONTENT.value(),
+                            cashCard.amount() - previous));
+                }
+            }
+            if (updates.isEmpty()) {
+                return Mono.just(results);
+            }
+            return databaseClient.inConnection(con -> {
+                Statement update = con.createStatement(
+                        "UPDATE cash_card SET AMOUNT = $1, VERSION = VERSION + 1 WHERE ID = $2 AND OWNER = $3");
+                for (int i = 0; i < updates.size(); i++) {
+                    if (i > 0) {
+                        update.add();
+                    }
+                    update.bind(0, updates.get(i).amount()).bind(1, updates.get(i).id()).bind(2, owner);
+                }
+                return Flux.from(update.execute())
+                        .concatMap(result -> result.getRowsUpdated())
+                        .then(Mono.just(results));
+            });
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebFlux counterpart of {@link CashCardChangeFeed}, with the same events, ids,
+ * replay and {@code reset}. Each subscriber has a bounded buffer that the
+ * response drains as the client reads; a subscriber whose buffer is full is sent
+ * what it holds and then completed, and reconnects with {@code Last-Event-ID}.
+ * No thread waits on a client, so there is no write timeout.
+ *
+ * <p>The controller publishes {@link CashCardChangedEvent}s once their
+ * transaction has committed, so they are taken as they come.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveCashCardChangeFeed {
+
+    private final String generation = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Change[] replay;
+    private long sequence;
+
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Duration reconnectTime;
+    private final Counter slowConsumersDropped;
+
+    ReactiveCashCardChangeFeed(MeterRegistry meterRegistry,
+                               @Value("${cashcard.stream.buffer-size}") int bufferSize,
+                               @Value("${cashcard.stream.replay-size}") int replaySize,
+                               @Value("${cashcard.stream.timeout}") Duration timeout,
+                               @Value("${cashcard.stream.reconnect-time}") Duration reconnectTime) {
+        this.bufferSize = bufferSize;
+        this.replay = new Change[replaySize];
+        this.timeout = timeout;
+        this.reconnectTime = reconnectTime;
+        this.slowConsumersDropped = Counter.builder("cashcard.stream.slow-consumers.dropped")
+                .description("Stream subscribers disconnected because they fell behind or stopped reading")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    void onCashCardChanged(CashCardChangedEvent event) {
+        String name = event.cardCountDelta() > 0 ? CashCardChangeFeed.CREATED : CashCardChangeFeed.CHANGED;
+        synchronized (replay) {
+            Change change = new Change(++sequence, event.owner(), name, new CashCardChange(event.id(), event.amountDelta()));
+            replay[(int) (change.sequence() % replay.length)] = change;
+            for (Subscriber subscriber : subscribers.getOrDefault(event.owner(), Set.of())) {
+                subscriber.offer(change);
+            }
+        }
+    }
+
+    /**
+     * Subscribes to the owner's changes, first replaying those after
+     * {@code lastEventId} when given.
+     */
+    Flux<ServerSentEvent<Object>> subscribe(String owner, String lastEventId) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber(owner);
+            synchronized (replay) {
+                List<Change> missed = lastEventId != null ? replayAfter(owner, lastEventId) : List.of();
+                if (missed == null) {
+                    subscriber.offer(new Change(sequence, owner, CashCardChangeFeed.RESET, null));
+                } else {
+                    missed.forEach(subscriber::offer);
+                }
+                subscribers.compute(owner, (o, set) -> {
+                    Set<Subscriber> owned = set != null ? set : ConcurrentHashMap.newKeySet();
+                    owned.add(subscriber);
+                    return owned;
+                });
+            }
+            ServerSentEvent<Object> retry = ServerSentEvent.builder().retry(reconnectTime).build();
+            return Flux.concat(Flux.just(retry), subscriber.changes.asFlux().map(this::toEvent))
+                    .take(timeout)
+                    .doFinally(signal -> subscriber.remove());
+        });
+    }
+
+    /**
+     * The owner's changes after {@code lastEventId}, or {@code null} if some may
+     * be missing or they do not fit the buffer.
+     */
+    private List<Change> replayAfter(String owner, String lastEventId) {
+        int separator = lastEventId.indexOf(':');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(generation)) {
+            return null;
+        }
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        long oldest = Math.max(1, sequence - replay.length + 1);
+        if (last > sequence || last < oldest - 1) {
+            return null;
+        }
+        List<Change> missed = new ArrayList<>();
+        for (long s = last + 1; s <= sequence; s++) {
+            Change change = replay[(int) (s % replay.length)];
+            if (change.owner().equals(owner)) {
+                if (missed.size() == bufferSize) {
+                    return null;
+                }
+                missed.add(change);
+            }
+        }
+        return missed;
+    }
+
+    int subscriberCount(String owner) {
+        return subscribers.getOrDefault(owner, Set.of()).size();
+    }
+
+    private ServerSentEvent<Object> toEvent(Change change) {
+        return ServerSentEvent.builder()
+                .id(generation + ":" + change.sequence())
+                .event(change.name())
+                .data(change.data() != null ? change.data() : "")
+                .build();
+    }
+
+    private record Change(long sequence, String owner, String name, CashCardChange data) {
+    }
+
+    private final class Subscriber {
+
+        private final String owner;
+        private final Sinks.Many<Change> changes;
+
+        Subscriber(String owner) {
+            this.owner = owner;
+            this.changes = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+        }
+
+        /**
+         * Called with the feed's lock held, which keeps emissions serialized.
+         */
+        void offer(Change change) {
+            if (changes.tryEmitNext(change) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                slowConsumersDropped.increment();
+                remove();
+                changes.tryEmitComplete();
+            }
+        }
+
+        void remove() {
+            subscribers.computeIfPresent(owner, (o, set) -> set.remove(this) && set.isEmpty() ? null : set);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package example.cashcard;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * WebFlux counterpart of {@link CashCardController}, active when the application
+ * runs as a reactive web application (the {@code reactive} profile). Lists and
+ * exports are returned as a {@link Flux}, so demand from the client propagates
+ * all the way to the R2DBC result.
+ *
+ * <p>Serves the same endpoints with the same responses, except
+ * {@code /cashcards/{id}/history}: the balance journal is only kept by the
+ * servlet application. Each write updates the owner's summary in its own
+ * transaction and publishes its {@link CashCardChangedEvent}s once that has
+ * committed.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/cashcards")
+public class ReactiveCashCardController {
+
+    private ReactiveCashCardRepository cashCardRepository;
+    private ReactiveCashCardChangeFeed changeFeed;
+    private TransactionalOperator transactionalOperator;
+    private ApplicationEventPublisher eventPublisher;
+    private int maxBatchSize;
+    private int maxLookupSize;
+
+    public ReactiveCashCardController(ReactiveCashCardRepository cashCardRepository,
+                                      ReactiveCashCardChangeFeed changeFeed,
+                                      TransactionalOperator transactionalOperator,
+                                      ApplicationEventPublisher eventPublisher,
+                                      @Value("${cashcard.batch.max-size}") int maxBatchSize,
+                                      @Value("${cashcard.lookup.max-size}") int maxLookupSize) {
+        this.cashCardRepository = cashCardRepository;
+        this.changeFeed = changeFeed;
+        this.transactionalOperator = transactionalOperator;
+        this.eventPublisher = eventPublisher;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLookupSize = maxLookupSize;
+    }
+
+    @GetMapping("/{requestedId}")
+    @Transactional(readOnly = true)
+    public Mono<ResponseEntity<CashCard>> findById(@PathVariable Long requestedId,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                   Principal principal) {
+        String owner = principal.getName();
+        Mono<ResponseEntity<CashCard>> card = cashCardRepository.findByIdAndOwner(requestedId, owner)
+                .map(cashCard -> ResponseEntity.ok()
+                        .eTag(String.valueOf(cashCard.version()))
+                        .body(cashCard))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+        if (ifNoneMatch == null) {
+            return card;
+        }
+        // A revalidating poll only needs the version, not the row or its JSON.
+        return cashCardRepository.findVersionByIdAndOwner(requestedId, owner)
+                .flatMap(version -> CashCardController.matchesAny(ifNoneMatch, String.valueOf(version))
+                        ? Mono.just(ReactiveCashCardController.<CashCard>notModified(String.valueOf(version)))
+                        : card)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<Flux<CashCard>>> findAll(Pageable pageable,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                        Principal principal) {
+        // Read the revision before the rows, so the ETag is never newer than the body.
+        return cashCardRepository.findRevisionByOwner(principal.getName()).map(revision -> {
+            String eTag = String.valueOf(revision);
+            if (ifNoneMatch != null && CashCardController.matchesAny(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .body(cashCardRepository.findByOwner(
+                            principal.getName(),
+                            PageRequest.of(
+                                    pageable.getPageNumber(),
+                                    pageable.getPageSize(),
+                                    pageable.getSortOr(Sort.by(Sort.Direction.DESC, "amount"))
+                            )
+                    ));
+        });
+    }
+
+    @GetMapping(params = "cursor")
+    @Transactional(readOnly = true)
+    public Mono<ResponseEntity<List<CashCard>>> findAllByCursor(@RequestParam String cursor,
+                                                                Pageable pageable,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                Principal principal) {
+        if (!CashCardCursor.supports(pageable.getSort())) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        CashCardCursor position;
+        try {
+            position = cursor.isEmpty()
+                    ? CashCardCursor.first(pageable.getSort())
+                    : CashCardCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return cashCardRepository.findRevisionByOwner(principal.getName()).flatMap(revision -> {
+            String eTag = String.valueOf(revision);
+            if (ifNoneMatch != null && CashCardController.matchesAny(ifNoneMatch, eTag)) {
+                return Mono.just(ReactiveCashCardController.<List<CashCard>>notModified(eTag));
+            }
+            return cashCardRepository.findByOwnerAfter(principal.getName(), position, pageable.getPageSize())
+                    .map(slice -> {
+                        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag);
+                        if (slice.hasNext()) {
+                            List<CashCard> content = slice.getContent();
+                            response.header(CashCardController.NEXT_CURSOR_HEADER,
+                                    position.after(content.get(content.size() - 1)).encode());
+                        }
+                        return response.body(slice.getContent());
+                    });
+        });
+    }
+
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<CashCardSummary>> summary(Principal principal) {
+        return cashCardRepository.findSummaryByOwner(principal.getName()).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<CashCardLookupResult>> findAllByIds(@RequestParam List<Long> ids, Principal principal) {
+        return lookup(ids, principal.getName());
+    }
+
+    @PostMapping("/lookup")
+    public Mono<ResponseEntity<CashCardLookupResult>> lookupByIds(@RequestBody List<Long> ids, Principal principal) {
+        return lookup(ids, principal.getName());
+    }
+
+    private Mono<ResponseEntity<CashCardLookupResult>> lookup(List<Long> ids, String owner) {
+        if (ids.size() > maxLookupSize) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        if (ids.contains(null)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Mono<Map<Long, CashCard>> found = requested.isEmpty()
+                ? Mono.just(Map.of())
+                : cashCardRepository.findByOwnerAndIdIn(owner, requested).collectMap(CashCard::id, Function.identity());
+        return found.map(cards -> {
+            List<CashCard> cashCards = new ArrayList<>(cards.size());
+            List<Long> missingIds = new ArrayList<>();
+            for (Long id : requested) {
+                CashCard cashCard = cards.get(id);
+                if (cashCard != null) {
+                    cashCards.add(cashCard);
+                } else {
+                    missingIds.add(id);
+                }
+            }
+            return ResponseEntity.ok(new CashCardLookupResult(cashCards, missingIds));
+        });
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<CashCard> export(Principal principal) {
+        return cashCardRepository.findByOwnerOrderById(principal.getName());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> stream(@RequestHeader(value = CashCardController.LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                                                Principal principal) {
+        return changeFeed.subscribe(principal.getName(), lastEventId);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Void>> createCashCard(@RequestBody CashCard newCashCard,
+                                                     UriComponentsBuilder ucb,
+                                                     Principal principal) {
+        String owner = principal.getName();
+        return write(owner, changes -> cashCardRepository.save(new CashCard(null, newCashCard.amount(), owner))
+                .map(savedCashCard -> {
+                    changes.add(new CashCardChangedEvent(savedCashCard.id(), owner,
+                            1, savedCashCard.amount(), savedCashCard.amount()));
+                    URI savedCashCardLocation = ucb
+                            .path("cashcards/{id}")
+                            .buildAndExpand(savedCashCard.id())
+                            .toUri();
+                    return ResponseEntity.created(savedCashCardLocation).build();
+                }));
+    }
+
+    @PutMapping("/{requestedId}")
+    public Mono<ResponseEntity<Void>> update(@RequestBody CashCard updatedCashCard,
+                                             @PathVariable Long requestedId,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                             Principal principal) {
+        String owner = principal.getName();
+        long amount = updatedCashCard.amount();
+        if (ifMatch == null || ifMatch.equals("*")) {
+            return write(owner, changes -> cashCardRepository.updateAmount(requestedId, owner, amount)
+                    .map(previousAmount -> {
+                        changes.add(amountChange(requestedId, owner, previousAmount, amount));
+                        return ResponseEntity.noContent().<Void>build();
+                    })
+                    .defaultIfEmpty(ResponseEntity.notFound().build()));
+        }
+        Long expectedVersion = CashCardController.parseVersion(ifMatch);
+        return write(owner, changes -> {
+            Mono<Long> previous = expectedVersion == null
+                    ? Mono.empty()
+                    : cashCardRepository.updateAmountIfVersion(requestedId, owner, amount, expectedVersion);
+            return previous
+                    .map(previousAmount -> {
+                        changes.add(amountChange(requestedId, owner, previousAmount, amount));
+                        return ResponseEntity.noContent()
+                                .eTag(String.valueOf(expectedVersion + 1))
+                                .<Void>build();
+                    })
+                    // Only the failure path pays for telling a stale version apart from a missing card.
+                    .switchIfEmpty(cashCardRepository.existsByIdAndOwner(requestedId, owner)
+                            .map(exists -> exists
+                                    ? ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Void>build()
+                                    : ResponseEntity.notFound().<Void>build()));
+        });
+    }
+
+    @PostMapping("/{requestedId}/credit")
+    public Mono<ResponseEntity<CashCard>> credit(@PathVariable Long requestedId,
+                                                 @RequestBody BalanceChange change,
+                                                 Principal principal) {
+        if (!change.isValid()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        String owner = principal.getName();
+        return write(owner, changes -> cashCardRepository.credit(requestedId, owner, change.amount())
+                .map(cashCard -> {
+                    changes.add(new CashCardChangedEvent(cashCard.id(), owner, 0, change.amount(), cashCard.amount()));
+                    return ResponseEntity.ok()
+                            .eTag(String.valueOf(cashCard.version()))
+                            .body(cashCard);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping("/{requestedId}/debit")
+    public Mono<ResponseEntity<CashCard>> debit(@PathVariable Long requestedId,
+                                                @RequestBody BalanceChange change,
+                                                Principal principal) {
+        if (!change.isValid()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        String owner = principal.getName();
+        return write(owner, changes -> cashCardRepository.debit(requestedId, owner, change.amount())
+                .map(cashCard -> {
+                    changes.add(new CashCardChangedEvent(cashCard.id(), owner, 0, -change.amount(), cashCard.amount()));
+                    return ResponseEntity.ok()
+                            .eTag(String.valueOf(cashCard.version()))
+                            .body(cashCard);
+                })
+                .switchIfEmpty(cashCardRepository.existsByIdAndOwner(requestedId, owner)
+                        .map(exists -> exists
+                                ? ResponseEntity.status(HttpStatus.CONFLICT).<CashCard>build()
+                                : ResponseEntity.notFound().<CashCard>build())));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<BatchItemResult>>> createCashCards(@RequestBody List<BatchItem> newCashCards,
+                                                                       Principal principal) {
+        if (newCashCards.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        String owner = principal.getName();
+        return write(owner, changes -> cashCardRepository.insertAll(owner, newCashCards)
+                .map(results -> {
+                    changes.addAll(batchChanges(newCashCards, results, owner, 1));
+                    return ResponseEntity.ok(results);
+                }));
+    }
+
+    @PutMapping("/batch")
+    public Mono<ResponseEntity<List<BatchItemResult>>> updateCashCards(@RequestBody List<BatchItem> updatedCashCards,
+                                                                       Principal principal) {
+        if (updatedCashCards.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        String owner = principal.getName();
+        return write(owner, changes -> cashCardRepository.updateAll(owner, updatedCashCards)
+                .map(results -> {
+                    changes.addAll(batchChanges(updatedCashCards, results, owner, 0));
+                    return ResponseEntity.ok(results);
+                }));
+    }
+
+    /**
+     * Runs {@code work}, which records the changes it made, in a transaction that
+     * also folds those changes into the owner's summary, and publishes them once
+     * the transaction has committed.
+     */
+    private <T> Mono<T> write(String owner, Function<List<CashCardChangedEvent>, Mono<T>> work) {
+        return Mono.defer(() -> {
+            List<CashCardChangedEvent> changes = new ArrayList<>();
+            return work.apply(changes)
+                    .flatMap(result -> changes.stream()
+                            .map(CashCardSummaryChange::of)
+                            .reduce(CashCardSummaryChange::plus)
+                            .map(change -> cashCardRepository.applyToSummary(owner, change).thenReturn(result))
+                            .orElse(Mono.just(result)))
+                    .as(transactionalOperator::transactional)
+                    .doOnNext(result -> changes.forEach(eventPublisher::publishEvent));
+        });
+    }
+
+    private static List<CashCardChangedEvent> batchChanges(List<BatchItem> cashCards, List<BatchItemResult> results,
+                                                           String owner, int cardCountDelta) {
+        List<CashCardChangedEvent> changes = new ArrayList<>();
+        for (BatchItemResult result : results) {
+            if (HttpStatus.valueOf(result.status()).is2xxSuccessful()) {
+                changes.add(new CashCardChangedEvent(result.id(), owner,
+                        cardCountDelta, result.amountDelta(), cashCards.get(result.index()).amount()));
+            }
+        }
+        return changes;
+    }
+
+    private static CashCardChangedEvent amountChange(Long id, String owner, long previousAmount, long amount) {
+        return new CashCardChangedEvent(id, owner, 0, amount - previousAmount, amount);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package example.cashcard;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * R2DBC counterpart of {@link CashCardRepository}, with the same queries.
+ */
+public interface ReactiveCashCardRepository extends R2dbcRepository<CashCard, Long>,
+        ReactiveKeysetCashCardRepository, ReactiveBatchCashCardRepository, ReactiveSummaryCashCardRepository {
+
+    Mono<CashCard> findByIdAndOwner(Long id, String owner);
+
+    Mono<Boolean> existsByIdAndOwner(Long id, String owner);
+
+    Flux<CashCard> findByOwner(String owner, Pageable pageable);
+
+    Flux<CashCard> findByOwnerOrderById(String owner);
+
+    Flux<CashCard> findByOwnerAndIdIn(String owner, Collection<Long> ids);
+
+    @Query("SELECT VERSION FROM cash_card WHERE ID = :id AND OWNER = :owner")
+    Mono<Long> findVersionByIdAndOwner(Long id, String owner);
+
+    /**
+     * Emits the owner's change counter, which moves on every write to any of the
+     * owner's cards; {@code 0} if nothing has been written yet.
+     */
+    @Query("SELECT COALESCE(MAX(REVISION), 0) FROM cash_card_owner_summary WHERE OWNER = :owner")
+    Mono<Long> findRevisionByOwner(String owner);
+
+    /**
+     * Sets the card's balance and emits the balance it had before; empty if the
+     * owner has no such card.
+     */
+    @Query("SELECT AMOUNT FROM OLD TABLE (UPDATE cash_card SET AMOUNT = :amount, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner)")
+    Mono<Long> updateAmount(Long id, String owner, Long amount);
+
+    /**
+     * Like {@link #updateAmount}, but only while the card is still at
+     * {@code version}; empty otherwise.
+     */
+    @Query("SELECT AMOUNT FROM OLD TABLE (UPDATE cash_card SET AMOUNT = :amount, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner AND VERSION = :version)")
+    Mono<Long> updateAmountIfVersion(Long id, String owner, Long amount, Long version);
+
+    /**
+     * Adds {@code delta} to the card's balance in a single statement and emits
+     * the card as written; empty if the owner has no such card.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE cash_card SET AMOUNT = AMOUNT + :delta, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner)")
+    Mono<CashCard> credit(Long id, String owner, long delta);
+
+    /**
+     * Takes {@code delta} from the card's balance in a single statement, but only
+     * if the balance covers it. Emits the card as written; empty if the owner has
+     * no such card or the funds are insufficient.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE cash_card SET AMOUNT = AMOUNT - :delta, VERSION = VERSION + 1 "
+            + "WHERE ID = :id AND OWNER = :owner AND AMOUNT >= :delta)")
+    Mono<CashCard> debit(Long id, String owner, long delta);
+}
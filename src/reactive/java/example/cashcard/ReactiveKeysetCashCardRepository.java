@@ -0,0 +1,13 @@
+package example.cashcard;
+
+import org.springframework.data.domain.Slice;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveKeysetCashCardRepository {
+
+    /**
+     * Returns up to {@code size} of the owner's cards following {@code cursor}
+     * in the cursor's order.
+     */
+    Mono<Slice<CashCard>> findByOwnerAfter(String owner, CashCardCursor cursor, int size);
+}
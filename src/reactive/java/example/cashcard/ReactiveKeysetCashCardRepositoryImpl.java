@@ -0,0 +1,37 @@
+package example.cashcard;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link KeysetCashCardRepositoryImpl}, running the same
+ * seek query.
+ */
+class ReactiveKeysetCashCardRepositoryImpl implements ReactiveKeysetCashCardRepository {
+
+    private final DatabaseClient databaseClient;
+
+    ReactiveKeysetCashCardRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<Slice<CashCard>> findByOwnerAfter(String owner, CashCardCursor cursor, int size) {
+        DatabaseClient.GenericExecuteSpec query = databaseClient.sql(KeysetCashCardRepositoryImpl.sql(cursor))
+                .bind("owner", owner)
+                .bind("limit", size + 1);
+        if (!cursor.isFirst()) {
+            query = query.bind("id", cursor.id());
+            if (cursor.byAmount()) {
+                query = query.bind("amount", cursor.amount());
+            }
+        }
+        return query
+                .map(row -> new CashCard(row.get("ID", Long.class), row.get("AMOUNT", Long.class),
+                        row.get("OWNER", String.class), row.get("VERSION", Long.class)))
+                .all()
+                .collectList()
+                .map(rows -> KeysetCashCardRepositoryImpl.slice(rows, cursor, size));
+    }
+}
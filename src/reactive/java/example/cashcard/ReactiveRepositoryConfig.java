@@ -0,0 +1,19 @@
+package example.cashcard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+
+/**
+ * The blocking {@link CashCardRepository} shares the package with the R2DBC
+ * repository and {@link CashCard} is a {@code @Table}, so R2DBC is told to leave
+ * the JDBC repository alone.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableR2dbcRepositories(excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ASSIGNABLE_TYPE, classes = CashCardRepository.class))
+public class ReactiveRepositoryConfig {
+}
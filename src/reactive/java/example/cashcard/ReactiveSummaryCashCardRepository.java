@@ -0,0 +1,14 @@
+package example.cashcard;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveSummaryCashCardRepository {
+
+    Mono<CashCardSummary> findSummaryByOwner(String owner);
+
+    /**
+     * Folds {@code change} into the owner's summary row, creating it on the
+     * owner's first card. Must run in the transaction of the writes it describes.
+     */
+    Mono<Void> applyToSummary(String owner, CashCardSummaryChange change);
+}
@@ -0,0 +1,68 @@
+package example.cashcard;
+
+import io.r2dbc.spi.Connection;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC counterpart of {@link SummaryCashCardRepositoryImpl}, running the same
+ * statements.
+ */
+class ReactiveSummaryCashCardRepositoryImpl implements ReactiveSummaryCashCardRepository {
+
+    private static final String BEFORE_INSERT = "before_summary_insert";
+
+    private final DatabaseClient databaseClient;
+
+    ReactiveSummaryCashCardRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<CashCardSummary> findSummaryByOwner(String owner) {
+        return databaseClient.sql("SELECT CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT FROM cash_card_owner_summary "
+                        + "WHERE OWNER = :owner")
+                .bind("owner", owner)
+                .map(row -> new CashCardSummary(row.get("CARD_COUNT", Long.class), row.get("TOTAL_AMOUNT", Long.class),
+                        row.get("LARGEST_AMOUNT", Long.class)))
+                .one()
+                .defaultIfEmpty(new CashCardSummary(0, 0, null));
+    }
+
+    @Override
+    public Mono<Void> applyToSummary(String owner, CashCardSummaryChange change) {
+        // The owner's first card. A concurrent first write may insert the row
+        // first; this one then rolls its insert back and updates that row instead.
+        return update(owner, change).flatMap(rows -> rows > 0 ? Mono.empty() : databaseClient.inConnection(con ->
+                Mono.from(con.createSavepoint(BEFORE_INSERT))
+                        .then(bind(databaseClient.sql(SummaryCashCardRepositoryImpl.INSERT), owner, change)
+                                .fetch().rowsUpdated())
+                        .then()
+                        .onErrorResume(DuplicateKeyException.class, e -> rollbackInsert(con)
+                                .then(update(owner, change))
+                                .then())));
+    }
+
+    private static Mono<Void> rollbackInsert(Connection con) {
+        return Mono.from(con.rollbackTransactionToSavepoint(BEFORE_INSERT));
+    }
+
+    private Mono<Long> update(String owner, CashCardSummaryChange change) {
+        DatabaseClient.GenericExecuteSpec update = bind(databaseClient.sql(SummaryCashCardRepositoryImpl.UPDATE),
+                owner, change);
+        update = change.largestLowered() != null
+                ? update.bind("largestLowered", change.largestLowered())
+                : update.bindNull("largestLowered", Long.class);
+        return update.fetch().rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec statement, String owner,
+                                                          CashCardSummaryChange change) {
+        return statement
+                .bind("owner", owner)
+                .bind("cardCount", change.cardCount())
+                .bind("totalAmount", change.totalAmount())
+                .bind("largestWritten", change.largestWritten());
+    }
+}
@@ -0,0 +1,285 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import net.minidev.json.JSONArray;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveCashCardApplicationTests {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    String username = "harlik";
+    String password = "abc123";
+
+    @Test
+    void shouldReturnACashCardWhenDataIsSaved() {
+        webTestClient.get().uri("/cashcards/123")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(123)
+                .jsonPath("$.amount").isEqualTo(456.78);
+    }
+
+    @Test
+    void shouldNotReturnOtherOwnersCashCard() {
+        webTestClient.get().uri("/cashcards/124")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldRejectWrongPasswordAndNonOwners() {
+        webTestClient.get().uri("/cashcards/123")
+                .headers(headers -> headers.setBasicAuth(username, "wrong-password"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+        webTestClient.get().uri("/cashcards/123")
+                .headers(headers -> headers.setBasicAuth("galina", "456zxcv"))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void shouldReturnAllUsersCashCardsLargestFirst() {
+        String body = webTestClient.get().uri("/cashcards")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        JSONArray amounts = JsonPath.parse(body).read("$..amount");
+        assertThat(amounts).containsExactly(987.10, 456.78, 234.56);
+    }
+
+    @Test
+    void shouldReturnCashCardsPage() {
+        webTestClient.get().uri("/cashcards?page=0&size=1&sort=amount,asc")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].amount").isEqualTo(234.56);
+    }
+
+    @Test
+    void shouldExportAllCashCardsAsNdjson() {
+        String body = webTestClient.get().uri("/cashcards/export")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertThat(body.split("\n")).hasSize(3);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldCreateAndUpdateACashCard() {
+        URI location = webTestClient.post().uri("/cashcards")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(new CashCard(null, 25000L, null))
+                .exchange()
+                .expectStatus().isCreated()
+                .returnResult(Void.class)
+                .getResponseHeaders()
+                .getLocation();
+
+        webTestClient.put().uri(location)
+                .headers(headers -> {
+                    headers.setBasicAuth(username, password);
+                    headers.setIfMatch("\"0\"");
+                })
+                .bodyValue(new CashCard(null, 30000L, null))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.put().uri(location)
+                .headers(headers -> {
+                    headers.setBasicAuth(username, password);
+                    headers.setIfMatch("\"0\"");
+                })
+                .bodyValue(new CashCard(null, 35000L, null))
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        webTestClient.get().uri(location)
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.amount").isEqualTo(300.0)
+                .jsonPath("$.owner").isEqualTo(username);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedWhileNothingChanged() {
+        webTestClient.get().uri("/cashcards/123")
+                .headers(headers -> {
+                    headers.setBasicAuth(username, password);
+                    headers.setIfNoneMatch("\"0\"");
+                })
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"0\"");
+
+        String eTag = webTestClient.get().uri("/cashcards")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        webTestClient.get().uri("/cashcards")
+                .headers(headers -> {
+                    headers.setBasicAuth(username, password);
+                    headers.setIfNoneMatch(eTag);
+                })
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void shouldPageCashCardsByCursor() {
+        EntityExchangeResult<String> firstPage = webTestClient.get().uri("/cashcards?cursor=&size=2&sort=amount,desc")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult();
+        JSONArray amounts = JsonPath.parse(firstPage.getResponseBody()).read("$..amount");
+        assertThat(amounts).containsExactly(987.10, 456.78);
+        String next = firstPage.getResponseHeaders().getFirst(CashCardController.NEXT_CURSOR_HEADER);
+        assertThat(next).isNotNull();
+
+        String body = webTestClient.get().uri("/cashcards?cursor={cursor}&size=2&sort=amount,desc", next)
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(CashCardController.NEXT_CURSOR_HEADER)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        amounts = JsonPath.parse(body).read("$..amount");
+        assertThat(amounts).containsExactly(234.56);
+
+        webTestClient.get().uri("/cashcards?cursor=&sort=owner")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldLookUpOwnCashCardsByIds() {
+        String body = webTestClient.get().uri("/cashcards?ids=126,124,999")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        DocumentContext result = JsonPath.parse(body);
+        assertThat((JSONArray) result.read("$.cashCards[*].id")).containsExactly(126);
+        assertThat((JSONArray) result.read("$.missingIds")).containsExactly(124, 999);
+
+        body = webTestClient.post().uri("/cashcards/lookup")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(List.of(125, 123))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        result = JsonPath.parse(body);
+        assertThat((JSONArray) result.read("$.cashCards[*].id")).containsExactly(125, 123);
+        assertThat((JSONArray) result.read("$.missingIds")).isEmpty();
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldKeepTheSummaryAcrossCreditsDebitsAndBatches() {
+        assertSummary(3, 1678.44, 987.10);
+
+        webTestClient.post().uri("/cashcards/123/credit")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(Map.of("amount", 10.00))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectBody()
+                .jsonPath("$.amount").isEqualTo(466.78);
+        webTestClient.post().uri("/cashcards/125/debit")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(Map.of("amount", 1000.00))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.post().uri("/cashcards/124/debit")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(Map.of("amount", 1.00))
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.post().uri("/cashcards/123/debit")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(Map.of("amount", 6.78))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.amount").isEqualTo(460.0);
+        assertSummary(3, 1681.66, 987.10);
+
+        webTestClient.post().uri("/cashcards/batch")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(List.of(Map.of("amount", 1.00), Map.of("owner", "alex")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo(201)
+                .jsonPath("$[0].id").isNumber()
+                .jsonPath("$[1].status").isEqualTo(400);
+        webTestClient.put().uri("/cashcards/batch")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .bodyValue(List.of(Map.of("id", 126, "amount", 1.00), Map.of("id", 124, "amount", 1.00)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo(204)
+                .jsonPath("$[1].status").isEqualTo(404);
+        assertSummary(4, 696.56, 460.0);
+    }
+
+    private void assertSummary(int cardCount, double totalAmount, double largestAmount) {
+        webTestClient.get().uri("/cashcards/summary")
+                .headers(headers -> headers.setBasicAuth(username, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.cardCount").isEqualTo(cardCount)
+                .jsonPath("$.totalAmount").isEqualTo(totalAmount)
+                .jsonPath("$.largestAmount").isEqualTo(largestAmount);
+    }
+}
@@ -0,0 +1,85 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@DirtiesContext
+public class ReactiveCashCardStreamApplicationTests {
+
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    void shouldPushOwnChangesAndResumeAfterLastEventId() {
+        Flux<ServerSentEvent<String>> events = subscribe(null);
+        webTestClient.post().uri("/cashcards")
+                .headers(headers -> headers.setBasicAuth("harlik", "abc123"))
+                .bodyValue(new CashCard(null, 1000L, null))
+                .exchange()
+                .expectStatus().isCreated();
+        webTestClient.put().uri("/cashcards/124")
+                .headers(headers -> headers.setBasicAuth("alex", "789sdf"))
+                .bodyValue(new CashCard(null, 1L, null))
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.post().uri("/cashcards/123/credit")
+                .headers(headers -> headers.setBasicAuth("harlik", "abc123"))
+                .bodyValue(Map.of("amount", 0.22))
+                .exchange()
+                .expectStatus().isOk();
+
+        List<ServerSentEvent<String>> received = events.take(2).collectList().block(Duration.ofSeconds(5));
+        ServerSentEvent<String> created = received.get(0);
+        assertThat(created.event()).isEqualTo("created");
+        assertThat((Number) JsonPath.parse(created.data()).read("$.amountDelta")).isEqualTo(10.0);
+        ServerSentEvent<String> changed = received.get(1);
+        assertThat(changed.event()).isEqualTo("changed");
+        DocumentContext data = JsonPath.parse(changed.data());
+        assertThat((Number) data.read("$.id")).isEqualTo(123);
+        assertThat((Number) data.read("$.amountDelta")).isEqualTo(0.22);
+
+        ServerSentEvent<String> resumed = subscribe(created.id()).blockFirst(Duration.ofSeconds(5));
+        assertThat(resumed.id()).isEqualTo(changed.id());
+        assertThat(resumed.data()).isEqualTo(changed.data());
+    }
+
+    @Test
+    void shouldAskForAReloadWhenChangesCannotBeReplayed() {
+        ServerSentEvent<String> event = subscribe("before-a-restart:42").blockFirst(Duration.ofSeconds(5));
+        assertThat(event.event()).isEqualTo("reset");
+    }
+
+    private Flux<ServerSentEvent<String>> subscribe(String lastEventId) {
+        return webTestClient.get().uri("/cashcards/stream")
+                .headers(headers -> {
+                    headers.setBasicAuth("harlik", "abc123");
+                    if (lastEventId != null) {
+                        headers.set("Last-Event-ID", lastEventId);
+                    }
+                })
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                })
+                .getResponseBody()
+                // Frames such as the initial reconnect time carry no event.
+                .filter(event -> event.event() != null);
+    }
+}
@@ -0,0 +1,63 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 20, Duration.ofMillis(100), 0.5);
+
+    @Test
+    void shouldRefuseBeyondTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release(FAST, false);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void shouldBackOffOnSlowOrDroppedRequestsDownToTheMinimum() {
+        limit.tryAcquire();
+        limit.release(SLOW, false);
+        assertThat(limit.getLimit()).isEqualTo(5);
+        limit.tryAcquire();
+        limit.release(FAST, true);
+        assertThat(limit.getLimit()).isEqualTo(2);
+        limit.tryAcquire();
+        limit.release(SLOW, false);
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGrowByAboutOnePerRoundOfFastRequestsWhileBusy() {
+        for (int round = 0; round < 3; round++) {
+            int slots = limit.getLimit();
+            for (int i = 0; i < slots; i++) {
+                assertThat(limit.tryAcquire()).isTrue();
+            }
+            for (int i = 0; i < slots; i++) {
+                limit.release(FAST, false);
+            }
+        }
+        assertThat(limit.getLimit()).isBetween(11, 13);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void shouldNotGrowWhileMostlyIdle() {
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+}
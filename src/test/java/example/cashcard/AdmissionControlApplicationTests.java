@@ -0,0 +1,72 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Callers are told apart by the client address, taken from
+ * {@code X-Forwarded-For} as behind a proxy. The rate is so low that no token
+ * comes back during the test, however slow the first requests are.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cashcard.admission.enabled=true",
+        "cashcard.admission.rate=" + AdmissionControlApplicationTests.RATE,
+        "cashcard.admission.burst=2",
+        "server.forward-headers-strategy=framework"
+})
+public class AdmissionControlApplicationTests {
+
+    static final double RATE = 0.001;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    void shouldRefuseCallersOverTheirRateWithRetryAfter() {
+        TestRestTemplate harlik = restTemplate.withBasicAuth("harlik", "abc123");
+        for (int i = 0; i < 2; i++) {
+            assertThat(get(harlik, "198.51.100.7", "/cashcards/123").getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+        ResponseEntity<String> refused = get(harlik, "198.51.100.7", "/cashcards/123");
+        assertThat(refused.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        long secondsPerToken = (long) (1 / RATE);
+        assertThat(Long.parseLong(refused.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)))
+                .isBetween(secondsPerToken - 60, secondsPerToken);
+
+        // Another client is unaffected, even for the same user.
+        assertThat(get(harlik, "192.0.2.1", "/cashcards/123").getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(restTemplate.getForEntity("/actuator/health", String.class).getStatusCode())
+                    .isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    @Test
+    void shouldNotLetGuessedPasswordsLockOutTheUser() {
+        TestRestTemplate guesser = restTemplate.withBasicAuth("alex", "guess");
+        for (int i = 0; i < 2; i++) {
+            assertThat(get(guesser, "203.0.113.9", "/cashcards/124").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        }
+        ResponseEntity<String> refused = get(guesser, "203.0.113.9", "/cashcards/124");
+        assertThat(refused.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        ResponseEntity<String> alex = get(restTemplate.withBasicAuth("alex", "789sdf"), "192.0.2.44", "/cashcards/124");
+        assertThat(alex.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    private static ResponseEntity<String> get(TestRestTemplate template, String clientAddress, String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Forwarded-For", clientAddress);
+        return template.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
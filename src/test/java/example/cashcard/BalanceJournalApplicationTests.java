@@ -0,0 +1,105 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import net.minidev.json.JSONArray;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cashcard.journal.enabled=true"
+})
+public class BalanceJournalApplicationTests {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("cashcard.journal.directory", () -> journalDirectory.toString());
+    }
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Test
+    @DirtiesContext
+    void shouldRecordEveryBalanceChangeOfACard() {
+        TestRestTemplate harlik = restTemplate.withBasicAuth("harlik", "abc123");
+        ResponseEntity<Void> putResponse = harlik.exchange("/cashcards/123", HttpMethod.PUT,
+                new HttpEntity<>(new CashCard(null, 50000L, null)), Void.class);
+        assertThat(putResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        ResponseEntity<String> debitResponse = harlik.postForEntity("/cashcards/123/debit",
+                new BalanceChange(2500L), String.class);
+        assertThat(debitResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        ResponseEntity<Void> createResponse = harlik.postForEntity("/cashcards",
+                new CashCard(null, 1000L, null), Void.class);
+        assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+        ResponseEntity<String> response = harlik.getForEntity("/cashcards/123/history", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray kinds = documentContext.read("$..kind");
+        assertThat(kinds).containsExactly("CHANGED", "CHANGED");
+        JSONArray amountDeltas = documentContext.read("$..amountDelta");
+        assertThat(amountDeltas).containsExactly(43.22, -25.0);
+        JSONArray owners = documentContext.read("$..owner");
+        assertThat(owners).isEmpty();
+
+        response = harlik.getForEntity(createResponse.getHeaders().getLocation().getPath() + "/history", String.class);
+        documentContext = JsonPath.parse(response.getBody());
+        kinds = documentContext.read("$..kind");
+        assertThat(kinds).containsExactly("CREATED");
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldRecordEveryCardOfABatch() {
+        TestRestTemplate alex = restTemplate.withBasicAuth("alex", "789sdf");
+        ResponseEntity<String> batch = alex.postForEntity("/cashcards/batch",
+                List.of(new CashCard(null, 100L, null), new CashCard(null, 200L, null),
+                        new CashCard(null, 300L, null)), String.class);
+        assertThat(batch.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONArray ids = JsonPath.parse(batch.getBody()).read("$..id");
+        assertThat(ids).hasSize(3);
+
+        for (Object id : ids) {
+            ResponseEntity<String> response = alex.getForEntity("/cashcards/" + id + "/history", String.class);
+            DocumentContext documentContext = JsonPath.parse(response.getBody());
+            JSONArray kinds = documentContext.read("$..kind");
+            assertThat(kinds).containsExactly("CREATED");
+        }
+    }
+
+    @Test
+    void shouldServeEmptyHistoryForCardsWrittenBeforeTheJournal() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .getForEntity("/cashcards/125/history", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("[]");
+    }
+
+    @Test
+    void shouldNotServeHistoryOfCardsOwnedByOthers() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("alex", "789sdf")
+                .getForEntity("/cashcards/126/history", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,103 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static example.cashcard.BalanceJournalEntry.Kind.CHANGED;
+import static example.cashcard.BalanceJournalEntry.Kind.CREATED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class BalanceJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReturnEachCardsEntriesInOrder() throws IOException {
+        try (BalanceJournal journal = open(BalanceJournal.FsyncPolicy.ALWAYS)) {
+            journal.append(1L, "harlik", CREATED, 1000).join();
+            journal.append(2L, "alex", CREATED, 500).join();
+            journal.append(1L, "harlik", CHANGED, -250).join();
+            journal.append(1L, "harlik", CHANGED, -750).join();
+
+            assertThat(journal.history(1L))
+                    .extracting(BalanceJournalEntry::kind, BalanceJournalEntry::amountDelta)
+                    .containsExactly(
+                            tuple(CREATED, 1000L),
+                            tuple(CHANGED, -250L),
+                            tuple(CHANGED, -750L));
+            assertThat(journal.history(1L)).extracting(BalanceJournalEntry::sequence).containsExactly(1L, 3L, 4L);
+            assertThat(journal.history(2L)).singleElement()
+                    .satisfies(entry -> assertThat(entry.owner()).isEqualTo("alex"));
+            assertThat(journal.history(3L)).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldRotateSegmentsAndRecoverTheIndexOnReopen() throws IOException {
+        List<CompletableFuture<BalanceJournalEntry>> appends = new ArrayList<>();
+        try (BalanceJournal journal = open(BalanceJournal.FsyncPolicy.NEVER)) {
+            for (int i = 0; i < 3000; i++) {
+                appends.add(journal.append(i % 10, "owner-" + (i % 10), CHANGED, i));
+            }
+            CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+        }
+        assertThat(segments()).hasSizeGreaterThan(1);
+
+        try (BalanceJournal journal = open(BalanceJournal.FsyncPolicy.INTERVAL)) {
+            assertThat(journal.history(7L)).hasSize(300)
+                    .allSatisfy(entry -> assertThat(entry.amountDelta() % 10).isEqualTo(7));
+            BalanceJournalEntry next = journal.append(7L, "owner-7", CHANGED, 1).join();
+            assertThat(next.sequence()).isEqualTo(3001);
+            assertThat(journal.history(7L)).last().isEqualTo(next);
+        }
+    }
+
+    @Test
+    void shouldDropATornRecordOnReopen() throws IOException {
+        try (BalanceJournal journal = open(BalanceJournal.FsyncPolicy.ALWAYS)) {
+            journal.append(1L, "harlik", CREATED, 1000).join();
+            journal.append(1L, "harlik", CHANGED, 1).join();
+        }
+        Path segment = segments().get(0);
+        long secondRecord;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, 0);
+            secondRecord = Integer.BYTES * 2 + length.flip().getInt();
+            // Damage the payload of the second record, as a crash mid-write would.
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), secondRecord + Integer.BYTES * 2 + 3);
+        }
+
+        try (BalanceJournal journal = open(BalanceJournal.FsyncPolicy.ALWAYS)) {
+            assertThat(journal.history(1L)).extracting(BalanceJournalEntry::amountDelta).containsExactly(1000L);
+            journal.append(1L, "harlik", CHANGED, 2).join();
+        }
+        try (BalanceJournal journal = open(BalanceJournal.FsyncPolicy.ALWAYS)) {
+            assertThat(journal.history(1L)).extracting(BalanceJournalEntry::amountDelta).containsExactly(1000L, 2L);
+        }
+    }
+
+    private BalanceJournal open(BalanceJournal.FsyncPolicy fsyncPolicy) throws IOException {
+        return new BalanceJournal(directory, BalanceJournal.MIN_SEGMENT_SIZE, fsyncPolicy, Duration.ofMillis(10));
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchCashCardRepositoryImplTest {
+
+    @Test
+    void shouldInsertRowByRowWhenDriverReturnsTooFewBatchKeys() throws Exception {
+        Connection con = mock(Connection.class);
+        Savepoint savepoint = mock(Savepoint.class);
+        PreparedStatement batch = mock(PreparedStatement.class);
+        PreparedStatement single = mock(PreparedStatement.class);
+        when(con.setSavepoint()).thenReturn(savepoint);
+        when(con.prepareStatement(anyString(), any(String[].class))).thenReturn(batch, single);
+        ResultSet batchKeys = keys(7L);
+        when(batch.getGeneratedKeys()).thenReturn(batchKeys);
+        ResultSet first = keys(8L);
+        ResultSet second = keys(9L);
+        when(single.getGeneratedKeys()).thenReturn(first, second);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(con);
+        BatchCashCardRepositoryImpl repository = new BatchCashCardRepositoryImpl(
+                new NamedParameterJdbcTemplate(dataSource),
+                new StaticListableBeanFactory().getBeanProvider(ShardedIdGenerator.class));
+
+        List<BatchItemResult> results = repository.insertAll("harlik", List.of(
+                new BatchItem(null, 100L),
+                new BatchItem(null, 200L)));
+
+        verify(con).rollback(savepoint);
+        verify(single, times(2)).executeUpdate();
+        assertThat(results).extracting(BatchItemResult::id).containsExactly(8L, 9L);
+        assertThat(results).extracting(BatchItemResult::status).containsOnly(201);
+    }
+
+    private static ResultSet keys(long id) throws Exception {
+        ResultSet keys = mock(ResultSet.class);
+        when(keys.next()).thenReturn(true, false);
+        when(keys.getLong(1)).thenReturn(id);
+        return keys;
+    }
+}
@@ -0,0 +1,126 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachingAuthenticationProviderTest {
+
+    private final AtomicInteger passwordChecks = new AtomicInteger();
+
+    private final PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+
+    private CachingAuthenticationProvider provider;
+
+    private UserDetailsManager users;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder countingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                passwordChecks.incrementAndGet();
+                return bcrypt.matches(rawPassword, encodedPassword);
+            }
+        };
+        DaoAuthenticationProvider dao = new DaoAuthenticationProvider();
+        dao.setPasswordEncoder(countingEncoder);
+        users = new EvictingUserDetailsManager(new InMemoryUserDetailsManager(User.builder()
+                .username("harlik")
+                .password(bcrypt.encode("abc123"))
+                .roles("CARD-OWNER")
+                .build()), username -> provider.evict(username));
+        dao.setUserDetailsService(users);
+        provider = new CachingAuthenticationProvider(dao, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldSkipPasswordEncoderForRepeatedValidCredentials() {
+        Authentication first = provider.authenticate(token("harlik", "abc123"));
+        Authentication second = provider.authenticate(token("harlik", "abc123"));
+
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo("harlik");
+        assertThat(second.getAuthorities()).isEqualTo(first.getAuthorities());
+        assertThat(passwordChecks).hasValue(1);
+        assertThat(provider.stats().hitCount()).isEqualTo(1);
+        assertThat(provider.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAlwaysCheckWrongPassword() {
+        provider.authenticate(token("harlik", "abc123"));
+
+        assertThatThrownBy(() -> provider.authenticate(token("harlik", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> provider.authenticate(token("harlik", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(passwordChecks).hasValue(3);
+    }
+
+    @Test
+    void shouldNotKeepPlainTextPasswordInCache() {
+        provider.authenticate(token("harlik", "abc123"));
+
+        assertThat(provider.cache().asMap().values())
+                .allSatisfy(entry -> assertThat(new String(entry.digest(), StandardCharsets.ISO_8859_1))
+                        .doesNotContain("abc123"));
+    }
+
+    @Test
+    void shouldCheckPasswordAgainAfterEviction() {
+        provider.authenticate(token("harlik", "abc123"));
+        provider.evict("harlik");
+        provider.authenticate(token("harlik", "abc123"));
+
+        assertThat(passwordChecks).hasValue(2);
+    }
+
+    @Test
+    void shouldRejectOldPasswordOnceUserIsUpdated() {
+        provider.authenticate(token("harlik", "abc123"));
+        users.updateUser(User.builder()
+                .username("harlik")
+                .password(bcrypt.encode("new-secret"))
+                .roles("CARD-OWNER")
+                .build());
+
+        assertThatThrownBy(() -> provider.authenticate(token("harlik", "abc123")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(provider.authenticate(token("harlik", "new-secret")).isAuthenticated()).isTrue();
+    }
+
+    @Test
+    void shouldRejectDeletedUser() {
+        provider.authenticate(token("harlik", "abc123"));
+        users.deleteUser("harlik");
+
+        assertThatThrownBy(() -> provider.authenticate(token("harlik", "abc123")))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
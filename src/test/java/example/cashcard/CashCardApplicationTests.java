@@ -5,24 +5,54 @@ import com.jayway.jsonpath.JsonPath;
 import net.minidev.json.JSONArray;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(tracing = false)
 public class CashCardApplicationTests {
 
     @Autowired
     TestRestTemplate restTemplate;
 
+    @Autowired
+    CashCardCache cashCardCache;
+
+    @Autowired
+    CashCardRepository cashCardRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
     String username = "harlik";
     String password = "abc123";
 
@@ -43,7 +73,7 @@ public class CashCardApplicationTests {
     @Test
     @DirtiesContext
     void shouldCreateANewCashCard() {
-        CashCard newCashCard = new CashCard(null, 250d, "harlik");
+        CashCard newCashCard = new CashCard(null, 25000L, "harlik");
         ResponseEntity<Void> createResponse =
                 restTemplate
                         .withBasicAuth(username, password)
@@ -206,7 +236,7 @@ public class CashCardApplicationTests {
         var documentContext = JsonPath.parse(response.getBody());
         double oldAmount = documentContext.read("$.amount");
         assertThat(oldAmount).isNotEqualTo(newAmount);
-        var updatedCashCard = new CashCard(cashCardId, newAmount, username);
+        var updatedCashCard = new CashCard(cashCardId, 10111L, username);
         HttpEntity<CashCard> request = new HttpEntity<>(updatedCashCard);
         var putResponse = restTemplate
                 .withBasicAuth(username, password)
@@ -228,7 +258,7 @@ public class CashCardApplicationTests {
 
     @Test
     void shouldReturnNotFoundWhenUpdatingCardAmountByNotCardOwner() {
-        var updatedCashCard = new CashCard(124L, 11.11, username);
+        var updatedCashCard = new CashCard(124L, 1111L, username);
         HttpEntity<CashCard> request = new HttpEntity<>(updatedCashCard);
         var putResponse = restTemplate
                 .withBasicAuth(username, password)
@@ -243,7 +273,7 @@ public class CashCardApplicationTests {
 
     @Test
     void shouldReturnNotFoundWhenUpdatingCardAmountOfNonExistingCard() {
-        var updatedCashCard = new CashCard(1L, 11.11, username);
+        var updatedCashCard = new CashCard(1L, 1111L, username);
         HttpEntity<CashCard> request = new HttpEntity<>(updatedCashCard);
         var putResponse = restTemplate
                 .withBasicAuth(username, password)
@@ -255,4 +285,498 @@ public class CashCardApplicationTests {
                 );
         assertThat(putResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
+
+    @Test
+    void shouldWalkAllCashCardsWithCursor() {
+        List<Double> amounts = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        while (cursor != null) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth(username, password)
+                    .getForEntity("/cashcards?size=1&cursor=" + cursor, String.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            JSONArray page = JsonPath.parse(response.getBody()).read("$..amount");
+            page.forEach(amount -> amounts.add(((Number) amount).doubleValue()));
+            cursor = response.getHeaders().getFirst(CashCardController.NEXT_CURSOR_HEADER);
+            pages++;
+        }
+        assertThat(pages).isEqualTo(3);
+        assertThat(amounts).containsExactly(987.10, 456.78, 234.56);
+    }
+
+    @Test
+    void shouldWalkCashCardsByIdWithCursor() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards?size=2&sort=id,asc&cursor=", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONArray ids = JsonPath.parse(response.getBody()).read("$..id");
+        assertThat(ids).containsExactly(123, 125);
+        String cursor = response.getHeaders().getFirst(CashCardController.NEXT_CURSOR_HEADER);
+        assertThat(cursor).isNotNull();
+
+        response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards?size=2&cursor=" + cursor, String.class);
+        ids = JsonPath.parse(response.getBody()).read("$..id");
+        assertThat(ids).containsExactly(126);
+        assertThat(response.getHeaders().getFirst(CashCardController.NEXT_CURSOR_HEADER)).isNull();
+    }
+
+    @Test
+    void shouldRejectCashCardWithoutAmount() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards", Map.of("owner", "harlik"), String.class);
+        assertThat(response.getStatusCode().is4xxClientError()).isTrue();
+        assertThat(response.getHeaders().getLocation()).isNull();
+    }
+
+    @Test
+    void shouldRejectMalformedCursor() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards?cursor=not-a-cursor", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldRejectCursorWithUnknownPrefix() {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("x:ASC:123".getBytes(StandardCharsets.UTF_8));
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards?cursor=" + cursor, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void shouldRejectCursorForUnsupportedSort() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards?sort=owner,asc&cursor=", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldCreateCashCardsInBatch() {
+        List<Object> newCashCards = List.of(
+                new CashCard(null, 1000L, null),
+                Map.of("owner", "alex"),
+                new CashCard(null, 3000L, "alex"));
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/batch", newCashCards, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray statuses = documentContext.read("$..status");
+        assertThat(statuses).containsExactly(201, 400, 201);
+        Number thirdId = documentContext.read("$[2].id");
+
+        ResponseEntity<String> created = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/" + thirdId, String.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.OK);
+        documentContext = JsonPath.parse(created.getBody());
+        assertThat((String) documentContext.read("$.owner")).isEqualTo(username);
+        assertThat((Number) documentContext.read("$.amount")).isEqualTo(30.0);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldUpdateOnlyOwnedCashCardsInBatch() {
+        List<CashCard> updatedCashCards = List.of(
+                new CashCard(123L, 123L, username),
+                new CashCard(124L, 456L, username),
+                new CashCard(1000L, 789L, username),
+                new CashCard(125L, 234L, username));
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/batch", HttpMethod.PUT, new HttpEntity<>(updatedCashCards), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONArray statuses = JsonPath.parse(response.getBody()).read("$..status");
+        assertThat(statuses).containsExactly(204, 404, 404, 204);
+
+        ResponseEntity<String> updated = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/125", String.class);
+        assertThat((Number) JsonPath.parse(updated.getBody()).read("$.amount")).isEqualTo(2.34);
+        ResponseEntity<String> untouched = restTemplate
+                .withBasicAuth("alex", "789sdf")
+                .getForEntity("/cashcards/124", String.class);
+        assertThat((Number) JsonPath.parse(untouched.getBody()).read("$.amount")).isEqualTo(789.01);
+    }
+
+    @Test
+    void shouldReturnOwnerSummary() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/summary", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Number) documentContext.read("$.cardCount")).isEqualTo(3);
+        assertThat((Number) documentContext.read("$.totalAmount")).isEqualTo(1678.44);
+        assertThat((Number) documentContext.read("$.largestAmount")).isEqualTo(987.1);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldKeepSummaryInStepWithEveryWritePath() {
+        var owner = restTemplate.withBasicAuth(username, password);
+        owner.postForEntity("/cashcards", new CashCard(null, 25000L, null), Void.class);
+        owner.exchange("/cashcards/123", HttpMethod.PUT,
+                new HttpEntity<>(new CashCard(123L, 1999L, username)), Void.class);
+        owner.postForEntity("/cashcards/126/debit", new BalanceChange(10000L), String.class);
+        owner.postForEntity("/cashcards/batch", List.of(new CashCard(null, 100050L, null)), String.class);
+        owner.exchange("/cashcards/batch", HttpMethod.PUT,
+                new HttpEntity<>(List.of(new CashCard(125L, 100L, username), new CashCard(125L, 200L, username))),
+                String.class);
+        restTemplate.withBasicAuth("alex", "789sdf")
+                .postForEntity("/cashcards/124/credit", new BalanceChange(500L), String.class);
+
+        ResponseEntity<String> response = owner.getForEntity("/cashcards/summary", String.class);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Number) documentContext.read("$.cardCount")).isEqualTo(5);
+        assertThat((Number) documentContext.read("$.totalAmount")).isEqualTo(2159.59);
+        assertThat((Number) documentContext.read("$.largestAmount")).isEqualTo(1000.5);
+    }
+
+    @Test
+    void shouldBackfillSummariesOfCardsThatPredateTheTable() {
+        Map<String, Object> summary = jdbcTemplate.queryForMap(
+                "SELECT CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT FROM cash_card_owner_summary WHERE OWNER = 'alex'");
+        Map<String, Object> aggregate = jdbcTemplate.queryForMap(
+                "SELECT COUNT(*) AS CARD_COUNT, CAST(SUM(AMOUNT) AS BIGINT) AS TOTAL_AMOUNT, MAX(AMOUNT) AS LARGEST_AMOUNT "
+                        + "FROM cash_card WHERE OWNER = 'alex'");
+        assertThat(summary).isEqualTo(aggregate);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldFindNextLargestAmountWhenLargestCardIsLowered() {
+        restTemplate.withBasicAuth(username, password).exchange("/cashcards/126", HttpMethod.PUT,
+                new HttpEntity<>(new CashCard(126L, 100L, username)), Void.class);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/summary", String.class);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Number) documentContext.read("$.cardCount")).isEqualTo(3);
+        assertThat((Number) documentContext.read("$.totalAmount")).isEqualTo(692.34);
+        assertThat((Number) documentContext.read("$.largestAmount")).isEqualTo(456.78);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldApplyConcurrentFirstWritesOfANewOwner() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch firstInserted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> first = executor.submit(() -> transaction.executeWithoutResult(status -> {
+                cashCardRepository.applyToSummary("newcomer", new CashCardSummaryChange(1, 500, 500, null));
+                firstInserted.countDown();
+                sleep(Duration.ofMillis(300));
+            }));
+            firstInserted.await();
+            transaction.executeWithoutResult(status ->
+                    cashCardRepository.applyToSummary("newcomer", new CashCardSummaryChange(1, 700, 700, null)));
+            first.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(cashCardRepository.findSummaryByOwner("newcomer"))
+                .isEqualTo(new CashCardSummary(2, 1200, 700L));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void shouldLookUpOwnedCashCardsByIdsInRequestOrder() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards?ids=126,124,1000,123,126", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray ids = documentContext.read("$.cashCards[*].id");
+        assertThat(ids).containsExactly(126, 123);
+        JSONArray missingIds = documentContext.read("$.missingIds");
+        assertThat(missingIds).containsExactly(124, 1000);
+    }
+
+    @Test
+    void shouldLookUpCashCardsByIdsPosted() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/lookup", List.of(125L, 999L), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        JSONArray amounts = documentContext.read("$.cashCards[*].amount");
+        assertThat(amounts).containsExactly(234.56);
+        JSONArray missingIds = documentContext.read("$.missingIds");
+        assertThat(missingIds).containsExactly(999);
+    }
+
+    @Test
+    void shouldRejectLookupOverMaximumSize() {
+        List<Long> ids = LongStream.rangeClosed(1, 501).boxed().toList();
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/lookup", ids, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldUpdateCardAmountWhenIfMatchIsCurrent() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/123", String.class);
+        String eTag = response.getHeaders().getETag();
+        assertThat(eTag).isEqualTo("\"0\"");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(eTag);
+        var putResponse = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/123", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(123L, 1999L, username), headers), String.class);
+        assertThat(putResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(putResponse.getHeaders().getETag()).isEqualTo("\"1\"");
+
+        response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/123", String.class);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1\"");
+        double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount).isEqualTo(19.99);
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenIfMatchIsStale() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"42\"");
+        var putResponse = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/123", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(123L, 1999L, username), headers), String.class);
+        assertThat(putResponse.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        var response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/123", String.class);
+        double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount).isEqualTo(456.78);
+    }
+
+    @Test
+    void shouldReturnNotFoundWhenIfMatchTargetsOtherOwnersCard() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"0\"");
+        var putResponse = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/124", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(124L, 1999L, username), headers), String.class);
+        assertThat(putResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenCardIsUnchanged() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/123", String.class);
+        String eTag = response.getHeaders().getETag();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        long hits = cashCardCache.stats().hitCount();
+        ResponseEntity<String> revalidated = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/123", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cashCardCache.stats().hitCount()).isEqualTo(hits + 1);
+        assertThat(revalidated.getHeaders().getETag()).isEqualTo(eTag);
+        assertThat(revalidated.getBody()).isNull();
+
+        headers.setIfNoneMatch("\"42\"");
+        revalidated = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/123", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidated.getHeaders().getETag()).isEqualTo(eTag);
+    }
+
+    @Test
+    void shouldNotRevalidateOtherOwnersCashCard() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch("\"0\"");
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards/124", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldReturnNotModifiedForListingUntilOwnerWrites() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards", String.class);
+        String eTag = response.getHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        ResponseEntity<String> revalidated = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getBody()).isNull();
+
+        // Another owner's write leaves this owner's listing valid.
+        restTemplate
+                .withBasicAuth("alex", "789sdf")
+                .exchange("/cashcards/124", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(124L, 100L, "alex")), String.class);
+        revalidated = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/125/credit", new BalanceChange(100L), String.class);
+        revalidated = restTemplate
+                .withBasicAuth(username, password)
+                .exchange("/cashcards", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(revalidated.getHeaders().getETag()).isNotEqualTo(eTag);
+        JSONArray amounts = JsonPath.parse(revalidated.getBody()).read("$..amount");
+        assertThat(amounts).contains(235.56);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldCreditAndDebitCardBalance() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/123/credit", new BalanceChange(1000L), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"1\"");
+        double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount).isEqualTo(466.78);
+
+        response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/123/debit", new BalanceChange(6678L), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount).isEqualTo(400.0);
+    }
+
+    @Test
+    void shouldRejectDebitBeyondBalance() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/125/debit", new BalanceChange(23457L), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+
+        response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/125", String.class);
+        double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount).isEqualTo(234.56);
+    }
+
+    @Test
+    void shouldNotCreditOtherOwnersCard() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/124/credit", new BalanceChange(1000L), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldRejectNonPositiveBalanceChange() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .postForEntity("/cashcards/123/debit", new BalanceChange(-500L), String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldServeRepeatedReadsFromCacheAndSeeWrites() {
+        restTemplate.withBasicAuth(username, password).getForEntity("/cashcards/125", String.class);
+        long hits = cashCardCache.stats().hitCount();
+        restTemplate.withBasicAuth(username, password).getForEntity("/cashcards/125", String.class);
+        assertThat(cashCardCache.stats().hitCount()).isEqualTo(hits + 1);
+
+        restTemplate.withBasicAuth(username, password)
+                .postForEntity("/cashcards/125/credit", new BalanceChange(44L), String.class);
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/125", String.class);
+        double amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount).isEqualTo(235.0);
+    }
+
+    @Test
+    void shouldExportAllCashCardsAsNdjson() {
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(username, password)
+                .getForEntity("/cashcards/export", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType())
+                .isEqualTo(MediaType.APPLICATION_NDJSON);
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines).hasSize(3);
+        List<Integer> ids = new ArrayList<>();
+        for (String line : lines) {
+            ids.add(JsonPath.parse(line).read("$.id"));
+            assertThat((String) JsonPath.parse(line).read("$.owner")).isEqualTo(username);
+        }
+        assertThat(ids).containsExactly(123, 125, 126);
+    }
+
+    @Test
+    void shouldExposePrometheusMetricsOnlyToMetricsRole() {
+        restTemplate.withBasicAuth(username, password).getForEntity("/cashcards/123", String.class);
+        restTemplate.withBasicAuth(username, password).getForEntity("/cashcards/124", String.class);
+        restTemplate.withBasicAuth(username, password).getForEntity("/cashcards", String.class);
+
+        assertThat(restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(restTemplate.withBasicAuth(username, password)
+                .getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.FORBIDDEN);
+
+        ResponseEntity<String> response = restTemplate.withBasicAuth("prometheus", "scrape123")
+                .getForEntity("/actuator/prometheus", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .contains("http_server_requests_seconds")
+                .contains("result=\"found\"")
+                .contains("result=\"not_found\"")
+                .contains("quantile=\"0.99\"")
+                .contains("spring_data_repository_invocations_seconds")
+                .contains("method=\"findByIdAndOwner\"")
+                .contains("cashcard_auth_password_verify_seconds")
+                .contains("cache=\"cashCards\"")
+                .contains("cache=\"credentials\"");
+        assertThat(response.getBody().lines()
+                .filter(line -> line.startsWith("http_server_requests")
+                        && line.contains("uri=\"/cashcards\"") && line.contains("status=\"200\"")))
+                .isNotEmpty()
+                .allSatisfy(line -> assertThat(line).contains("result=\"ok\""));
+    }
 }
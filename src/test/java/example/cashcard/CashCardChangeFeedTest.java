@@ -0,0 +1,43 @@
+package example.cashcard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CashCardChangeFeedTest {
+
+    // Never runs the drains, as if every subscriber's client had stopped reading.
+    List<Runnable> stalledTasks = new ArrayList<>();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CashCardChangeFeed feed = new CashCardChangeFeed(stalledTasks::add, meterRegistry, 2, 16, Duration.ofMinutes(1),
+            Duration.ofSeconds(3), Duration.ofSeconds(10));
+
+    @Test
+    void shouldDisconnectASubscriberWhoseBufferIsFull() {
+        feed.subscribe("harlik", null);
+        feed.subscribe("alex", null);
+
+        feed.onCashCardChanged(new CashCardChangedEvent(123L, "harlik", 0, 100, 45778));
+        feed.onCashCardChanged(new CashCardChangedEvent(123L, "harlik", 0, 100, 45778));
+        assertThat(feed.subscriberCount("harlik")).isEqualTo(1);
+        feed.onCashCardChanged(new CashCardChangedEvent(123L, "harlik", 0, 100, 45778));
+
+        assertThat(feed.subscriberCount("harlik")).isZero();
+        assertThat(feed.subscriberCount("alex")).isEqualTo(1);
+        assertThat(meterRegistry.counter("cashcard.stream.slow-consumers.dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDrainEachSubscriberFromOneTaskAtATime() {
+        feed.subscribe("harlik", null);
+        feed.onCashCardChanged(new CashCardChangedEvent(123L, "harlik", 0, 100, 45778));
+        feed.onCashCardChanged(new CashCardChangedEvent(123L, "harlik", 0, 100, 45778));
+
+        assertThat(stalledTasks).hasSize(1);
+    }
+}
@@ -24,10 +24,10 @@ public class CashCardJsonTest {
     @BeforeEach
     void setUp() {
         cashCards = new CashCard[]{
-                new CashCard(123L, 456.78, "harlik"),
-                new CashCard(124L, 789.01, "harlik"),
-                new CashCard(125L, 234.56, "harlik"),
-                new CashCard(126L, 987.10, "harlik")
+                new CashCard(123L, 45678L, "harlik"),
+                new CashCard(124L, 78901L, "harlik"),
+                new CashCard(125L, 23456L, "harlik"),
+                new CashCard(126L, 98710L, "harlik")
         };
     }
 
@@ -86,14 +86,14 @@ public class CashCardJsonTest {
                 }
                 """;
         assertThat(json.parse(expected))
-                .isEqualTo(new CashCard(99L, 123.45, "harlik"));
+                .isEqualTo(new CashCard(99L, 12345L, "harlik"));
         assertThat(json.parseObject(expected).id()).isEqualTo(99);
-        assertThat(json.parseObject(expected).amount()).isEqualTo(123.45);
+        assertThat(json.parseObject(expected).amount()).isEqualTo(12345L);
     }
 
     @Test
     public void CashCardSerializationTest() throws IOException {
-        CashCard cashCard = new CashCard(99L, 123.45, "harlik");
+        CashCard cashCard = new CashCard(99L, 12345L, "harlik");
         assertThat(json.write(cashCard))
                 .isStrictlyEqualToJson("single.json");
         assertThat(json.write(cashCard))
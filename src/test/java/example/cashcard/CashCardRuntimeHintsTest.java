@@ -0,0 +1,44 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CashCardRuntimeHintsTest {
+
+    RuntimeHints hints = new RuntimeHints();
+
+    CashCardRuntimeHintsTest() {
+        new CashCardRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void shouldRegisterCashCardForMappingAndJson() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(CashCard.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(CashCard.class, "amount")).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterCentsConverters() {
+        assertThat(RuntimeHintsPredicates.reflection().onType(CentsFormat.Serializer.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(CentsFormat.Deserializer.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterResponseBodies() {
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(CashCardChange.class, "amountDelta")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(BalanceJournalEntry.class, "timestamp")).accepts(hints);
+    }
+
+    @Test
+    void shouldRegisterSummaryBackfillScript() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("summary-backfill.sql")).accepts(hints);
+    }
+}
@@ -0,0 +1,135 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext
+public class CashCardStreamApplicationTests {
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void shouldPushOwnChangesAndResumeAfterLastEventId() throws Exception {
+        Map<String, String> created;
+        Map<String, String> changed;
+        try (Subscription subscription = subscribe("harlik", "abc123", null)) {
+            TestRestTemplate harlik = restTemplate.withBasicAuth("harlik", "abc123");
+            assertThat(harlik.postForEntity("/cashcards", new CashCard(null, 1000L, null), Void.class)
+                    .getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(restTemplate.withBasicAuth("alex", "789sdf").exchange("/cashcards/124", HttpMethod.PUT,
+                    new HttpEntity<>(new CashCard(null, 1L, null)), Void.class).getStatusCode())
+                    .isEqualTo(HttpStatus.NO_CONTENT);
+            assertThat(harlik.exchange("/cashcards/123", HttpMethod.PUT,
+                    new HttpEntity<>(new CashCard(null, 45700L, null)), Void.class).getStatusCode())
+                    .isEqualTo(HttpStatus.NO_CONTENT);
+
+            created = subscription.next();
+            assertThat(created.get("event")).isEqualTo("created");
+            assertThat((Number) JsonPath.parse(created.get("data")).read("$.amountDelta")).isEqualTo(10.0);
+            changed = subscription.next();
+            assertThat(changed.get("event")).isEqualTo("changed");
+            DocumentContext data = JsonPath.parse(changed.get("data"));
+            assertThat((Number) data.read("$.id")).isEqualTo(123);
+            assertThat((Number) data.read("$.amountDelta")).isEqualTo(0.22);
+        }
+
+        try (Subscription resumed = subscribe("harlik", "abc123", created.get("id"))) {
+            assertThat(resumed.next()).isEqualTo(changed);
+        }
+    }
+
+    @Test
+    void shouldAskForAReloadWhenChangesCannotBeReplayed() throws Exception {
+        try (Subscription subscription = subscribe("harlik", "abc123", "before-a-restart:42")) {
+            assertThat(subscription.next().get("event")).isEqualTo("reset");
+        }
+    }
+
+    private Subscription subscribe(String username, String password, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/cashcards/stream"))
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                        .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                .send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK.value());
+        return new Subscription(response.body());
+    }
+
+    /**
+     * Collects the stream's events on a background thread.
+     */
+    static class Subscription implements AutoCloseable {
+
+        private final Stream<String> lines;
+        private final BlockingQueue<Map<String, String>> events = new LinkedBlockingQueue<>();
+
+        Subscription(Stream<String> lines) {
+            this.lines = lines;
+            Thread reader = new Thread(() -> {
+                Map<String, String> event = new HashMap<>();
+                try {
+                    for (String line : (Iterable<String>) lines::iterator) {
+                        if (line.isEmpty()) {
+                            // Frames such as the initial reconnect time carry no event.
+                            if (event.containsKey("event")) {
+                                events.add(event);
+                            }
+                            event = new HashMap<>();
+                        } else {
+                            int colon = line.indexOf(':');
+                            event.merge(line.substring(0, colon), line.substring(colon + 1), String::concat);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // Closed by the test.
+                }
+            });
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        Map<String, String> next() throws InterruptedException {
+            Map<String, String> event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("next event").isNotNull();
+            return event;
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package example.cashcard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CentsFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldFormatCentsAsDecimal() {
+        assertThat(format(0)).isEqualTo("0.00");
+        assertThat(format(5)).isEqualTo("0.05");
+        assertThat(format(-5)).isEqualTo("-0.05");
+        assertThat(format(98710)).isEqualTo("987.10");
+        assertThat(format(-123456)).isEqualTo("-1234.56");
+        assertThat(format(Long.MAX_VALUE)).isEqualTo("92233720368547758.07");
+        assertThat(format(Long.MIN_VALUE)).isEqualTo("-92233720368547758.08");
+    }
+
+    @Test
+    void shouldParseDecimalIntoCents() {
+        assertThat(parse("987.10")).isEqualTo(98710);
+        assertThat(parse("987.1")).isEqualTo(98710);
+        assertThat(parse("987")).isEqualTo(98700);
+        assertThat(parse("0.05")).isEqualTo(5);
+        assertThat(parse("-0.05")).isEqualTo(-5);
+        assertThat(parse("1.2300")).isEqualTo(123);
+    }
+
+    @Test
+    void shouldRejectWhatCentsCannotHold() {
+        assertThatThrownBy(() -> parse("1.234")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse(".5")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("1.5e2")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("12a")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("-")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> parse("92233720368547758.08")).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void shouldRoundTripThroughJson() throws Exception {
+        CashCard cashCard = new CashCard(99L, 98710L, "harlik");
+        String json = objectMapper.writeValueAsString(cashCard);
+        assertThat(json).contains("\"amount\":987.10");
+        assertThat(objectMapper.readValue(json, CashCard.class)).isEqualTo(cashCard);
+        assertThat(objectMapper.writeValueAsString(new BalanceChange(-5L))).isEqualTo("{\"amount\":-0.05}");
+        assertThat(objectMapper.writeValueAsString(new BalanceChange(-1205L))).isEqualTo("{\"amount\":-12.05}");
+        assertThat(objectMapper.valueToTree(cashCard).get("amount").decimalValue()).isEqualByComparingTo("987.10");
+    }
+
+    @Test
+    void shouldAcceptEveryNumberShapeAnAmountCouldArriveIn() throws Exception {
+        assertThat(readAmount("12")).isEqualTo(1200);
+        assertThat(readAmount("12.5")).isEqualTo(1250);
+        assertThat(readAmount("1.25e2")).isEqualTo(12500);
+        assertThat(readAmount("\"12.34\"")).isEqualTo(1234);
+        assertThat(readAmount("null")).isNull();
+        assertThatThrownBy(() -> readAmount("12.345")).isInstanceOf(InvalidFormatException.class);
+    }
+
+    private Long readAmount(String amount) throws Exception {
+        return objectMapper.readValue("{\"amount\":" + amount + "}", BalanceChange.class).amount();
+    }
+
+    private static String format(long cents) {
+        char[] buffer = new char[CentsFormat.MAX_LENGTH];
+        int offset = CentsFormat.format(cents, buffer);
+        return new String(buffer, offset, buffer.length - offset);
+    }
+
+    private static long parse(String text) {
+        return CentsFormat.parse(text.toCharArray(), 0, text.length());
+    }
+}
@@ -0,0 +1,139 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.JsonPath;
+import net.minidev.json.JSONArray;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against a primary plus two replicas: one that cannot be reached and a
+ * second embedded H2 database. The reachable replica starts as a copy of the
+ * primary, then has amounts changed so each response shows where it was read.
+ * Nothing replicates the heartbeat, so the replica is given one from the far
+ * future, which always counts as caught up.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cashcard.replicas.enabled=true",
+        "cashcard.replicas.urls=jdbc:h2:tcp://localhost:1/unreachable," + ReplicaRoutingApplicationTests.REPLICA_URL,
+        "cashcard.replicas.read-your-writes-window=1s",
+        "cashcard.replicas.max-lag=500ms",
+        "cashcard.replicas.probe-interval=50ms",
+        "spring.datasource.hikari.connection-timeout=250"
+})
+public class ReplicaRoutingApplicationTests {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    CashCardCache cashCardCache;
+
+    @BeforeAll
+    static void setUpReplica() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                .execute(replica);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+        jdbcTemplate.update("UPDATE cash_card SET AMOUNT = 100 WHERE ID = 123");
+        jdbcTemplate.update("UPDATE cash_card SET AMOUNT = 200 WHERE ID = 124");
+        jdbcTemplate.update("INSERT INTO replica_heartbeat (ID, BEAT_AT) VALUES (1, ?)", Long.MAX_VALUE);
+    }
+
+    @BeforeEach
+    void awaitReplicaInRotation() throws InterruptedException {
+        awaitAlexAmount(2.0);
+    }
+
+    @Test
+    void shouldReadFromReplicaPastTheUnreachableOne() {
+        for (int i = 0; i < 3; i++) {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("alex", "789sdf")
+                    .getForEntity("/cashcards", String.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            JSONArray amounts = JsonPath.parse(response.getBody()).read("$..amount");
+            assertThat(amounts).containsExactly(2.0);
+        }
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimaryWithinWindow() throws InterruptedException {
+        ResponseEntity<Void> putResponse = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .exchange("/cashcards/125", HttpMethod.PUT,
+                        new HttpEntity<>(new CashCard(125L, 500L, "harlik")), Void.class);
+        assertThat(putResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .getForEntity("/cashcards?sort=id,asc", String.class);
+        JSONArray amounts = JsonPath.parse(response.getBody()).read("$..amount");
+        assertThat(amounts).containsExactly(456.78, 5.0, 987.1);
+
+        Thread.sleep(1500);
+        response = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .getForEntity("/cashcards?sort=id,asc", String.class);
+        amounts = JsonPath.parse(response.getBody()).read("$..amount");
+        assertThat(amounts).containsExactly(1.0, 234.56, 987.1);
+    }
+
+    @Test
+    void shouldReadFromPrimaryWhileReplicaLags() throws InterruptedException {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.update("UPDATE replica_heartbeat SET BEAT_AT = 0");
+        try {
+            awaitAlexAmount(789.01);
+        } finally {
+            replica.update("UPDATE replica_heartbeat SET BEAT_AT = ?", Long.MAX_VALUE);
+        }
+        awaitAlexAmount(2.0);
+    }
+
+    @Test
+    void shouldFillCacheFromPrimaryAfterChangeElsewhere() {
+        // As when another instance changed the card and its invalidation arrived here.
+        cashCardCache.evict(123L, "harlik");
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .getForEntity("/cashcards/123", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Number amount = JsonPath.parse(response.getBody()).read("$.amount");
+        assertThat(amount.doubleValue()).isEqualTo(456.78);
+    }
+
+    private void awaitAlexAmount(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        JSONArray amounts;
+        do {
+            ResponseEntity<String> response = restTemplate
+                    .withBasicAuth("alex", "789sdf")
+                    .getForEntity("/cashcards", String.class);
+            amounts = JsonPath.parse(response.getBody()).read("$..amount");
+            if (amounts.contains(expected)) {
+                return;
+            }
+            Thread.sleep(50);
+        } while (System.nanoTime() - deadline < 0);
+        assertThat(amounts).containsExactly(expected);
+    }
+}
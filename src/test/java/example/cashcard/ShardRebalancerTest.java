@@ -0,0 +1,85 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ShardRebalancerTest {
+
+    static final int OWNERS = 300;
+
+    List<DataSource> shards = new ArrayList<>();
+
+    @BeforeEach
+    void setUpShards() {
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < 3; i++) {
+            DataSource shard = new DriverManagerDataSource("jdbc:h2:mem:rebalance-" + run + "-" + i + ";DB_CLOSE_DELAY=-1", "sa", "");
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(shard);
+            shards.add(shard);
+        }
+        ShardRing twoShards = new ShardRing(2, ShardRing.DEFAULT_VIRTUAL_NODES);
+        for (int owner = 0; owner < OWNERS; owner++) {
+            String name = "owner-" + owner;
+            JdbcTemplate shard = new JdbcTemplate(shards.get(twoShards.shardFor(name)));
+            shard.update("INSERT INTO cash_card (ID, AMOUNT, OWNER, VERSION) VALUES (?, 100, ?, 3)", owner * 2L, name);
+            shard.update("INSERT INTO cash_card (ID, AMOUNT, OWNER, VERSION) VALUES (?, 250, ?, 0)", owner * 2L + 1, name);
+            shard.update("INSERT INTO cash_card_owner_summary (OWNER, REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT) "
+                    + "VALUES (?, 7, 2, 350, 250)", name);
+        }
+    }
+
+    @Test
+    void shouldMoveOnlyOwnersTheNewShardTakesOver() {
+        ShardRing threeShards = new ShardRing(3, ShardRing.DEFAULT_VIRTUAL_NODES);
+        int moved = new ShardRebalancer(shards, threeShards).rebalance();
+
+        assertThat(moved).isBetween(OWNERS / 5, OWNERS / 2);
+        int cards = 0;
+        for (int i = 0; i < shards.size(); i++) {
+            JdbcTemplate shard = new JdbcTemplate(shards.get(i));
+            for (String owner : shard.queryForList("SELECT DISTINCT OWNER FROM cash_card", String.class)) {
+                assertThat(threeShards.shardFor(owner)).isEqualTo(i);
+            }
+            for (String owner : shard.queryForList("SELECT OWNER FROM cash_card_owner_summary", String.class)) {
+                assertThat(threeShards.shardFor(owner)).isEqualTo(i);
+            }
+            cards += shard.queryForObject("SELECT COUNT(*) FROM cash_card", Integer.class);
+        }
+        assertThat(cards).isEqualTo(OWNERS * 2);
+        assertThat(new JdbcTemplate(shards.get(2)).queryForObject(
+                "SELECT COUNT(*) FROM cash_card_owner_summary", Integer.class)).isEqualTo(moved);
+
+        assertThat(new ShardRebalancer(shards, threeShards).rebalance()).isZero();
+    }
+
+    @Test
+    void shouldKeepIdsVersionsAndSummaryOfMovedOwner() {
+        ShardRing threeShards = new ShardRing(3, ShardRing.DEFAULT_VIRTUAL_NODES);
+        new ShardRebalancer(shards, threeShards).rebalance();
+
+        JdbcTemplate newShard = new JdbcTemplate(shards.get(2));
+        String owner = newShard.queryForObject("SELECT MIN(OWNER) FROM cash_card", String.class);
+        long first = Long.parseLong(owner.substring("owner-".length())) * 2;
+        assertThat(newShard.queryForList("SELECT ID, VERSION FROM cash_card WHERE OWNER = ? ORDER BY ID", owner))
+                .extracting(row -> ((Number) row.get("ID")).longValue(), row -> ((Number) row.get("VERSION")).longValue())
+                .containsExactly(tuple(first, 3L), tuple(first + 1, 0L));
+        assertThat(newShard.queryForMap("SELECT REVISION, CARD_COUNT, TOTAL_AMOUNT, LARGEST_AMOUNT "
+                + "FROM cash_card_owner_summary WHERE OWNER = ?", owner))
+                .containsEntry("REVISION", 8L)
+                .containsEntry("CARD_COUNT", 2L)
+                .containsEntry("TOTAL_AMOUNT", 350L)
+                .containsEntry("LARGEST_AMOUNT", 250L);
+    }
+}
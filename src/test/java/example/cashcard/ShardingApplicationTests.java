@@ -0,0 +1,114 @@
+package example.cashcard;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import net.minidev.json.JSONArray;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two embedded H2 shards, seeded from data.sql, and checks through
+ * the shards themselves that each card lands on its owner's shard.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cashcard.shards.enabled=true",
+        "cashcard.shards.urls=" + ShardingApplicationTests.SHARD_0_URL + "," + ShardingApplicationTests.SHARD_1_URL
+})
+public class ShardingApplicationTests {
+
+    static final String SHARD_0_URL = "jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1";
+    static final String SHARD_1_URL = "jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    ShardRoutingDataSource shardRoutingDataSource;
+
+    @Test
+    void shouldSeedEveryCardOnItsOwnersShardOnce() {
+        assertThat(shardRoutingDataSource.ring().shardFor("harlik"))
+                .isNotEqualTo(shardRoutingDataSource.ring().shardFor("alex"));
+        assertOnlyOnShard(123L, "harlik");
+        assertOnlyOnShard(124L, "alex");
+        assertOnlyOnShard(125L, "harlik");
+        assertOnlyOnShard(126L, "harlik");
+    }
+
+    @Test
+    void shouldKeepEveryCardOnItsOwnersShard() {
+        long harlikId = create("harlik", "abc123", 1000L);
+        long alexId = create("alex", "789sdf", 2000L);
+        ResponseEntity<String> batch = restTemplate
+                .withBasicAuth("alex", "789sdf")
+                .postForEntity("/cashcards/batch",
+                        List.of(new CashCard(null, 3000L, null), new CashCard(null, 4000L, null)), String.class);
+        assertThat(batch.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONArray batchIds = JsonPath.parse(batch.getBody()).read("$..id");
+
+        assertOnShard(harlikId, "harlik");
+        assertOnShard(alexId, "alex");
+        for (Object id : batchIds) {
+            assertOnShard(((Number) id).longValue(), "alex");
+        }
+        assertThat(batchIds).doesNotContain(alexId);
+
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth("alex", "789sdf")
+                .getForEntity("/cashcards?sort=amount,asc", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JSONArray amounts = JsonPath.parse(response.getBody()).read("$..amount");
+        assertThat(amounts).containsExactly(20.0, 30.0, 40.0, 789.01);
+
+        response = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .getForEntity("/cashcards/" + alexId, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        response = restTemplate
+                .withBasicAuth("harlik", "abc123")
+                .getForEntity("/cashcards/summary", String.class);
+        DocumentContext documentContext = JsonPath.parse(response.getBody());
+        assertThat((Number) documentContext.read("$.cardCount")).isEqualTo(4);
+        assertThat((Number) documentContext.read("$.totalAmount")).isEqualTo(1688.44);
+    }
+
+    private long create(String owner, String password, long amount) {
+        ResponseEntity<Void> createResponse = restTemplate
+                .withBasicAuth(owner, password)
+                .postForEntity("/cashcards", new CashCard(null, amount, owner), Void.class);
+        assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        URI location = createResponse.getHeaders().getLocation();
+        ResponseEntity<String> response = restTemplate
+                .withBasicAuth(owner, password)
+                .getForEntity(location, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return JsonPath.parse(response.getBody()).read("$.id", Long.class);
+    }
+
+    private void assertOnShard(long id, String owner) {
+        assertThat(id % ShardedIdGenerator.MAX_SHARDS).isEqualTo(shardRoutingDataSource.ring().shardFor(owner));
+        assertOnlyOnShard(id, owner);
+    }
+
+    private void assertOnlyOnShard(long id, String owner) {
+        int shard = shardRoutingDataSource.ring().shardFor(owner);
+        List<String> urls = List.of(SHARD_0_URL, SHARD_1_URL);
+        for (int i = 0; i < urls.size(); i++) {
+            Integer count = new JdbcTemplate(new DriverManagerDataSource(urls.get(i), "sa", ""))
+                    .queryForObject("SELECT COUNT(*) FROM cash_card WHERE ID = ? AND OWNER = ?", Integer.class, id, owner);
+            assertThat(count).isEqualTo(i == shard ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package example.cashcard;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketsTest {
+
+    AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    TokenBuckets tokenBuckets = new TokenBuckets(10, 3, 100, Duration.ofMinutes(1), now::get);
+
+    @Test
+    void shouldAllowABurstThenOneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(tokenBuckets.tryAcquire("harlik")).isZero();
+        }
+        assertThat(tokenBuckets.tryAcquire("harlik")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(40));
+        assertThat(tokenBuckets.tryAcquire("harlik")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(60));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        assertThat(tokenBuckets.tryAcquire("harlik")).isZero();
+        assertThat(tokenBuckets.tryAcquire("harlik")).isPositive();
+    }
+
+    @Test
+    void shouldRefillUpToTheBurstOnly() {
+        assertThat(tokenBuckets.tryAcquire("harlik")).isZero();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertThat(tokenBuckets.tryAcquire("harlik")).isZero();
+        }
+        assertThat(tokenBuckets.tryAcquire("harlik")).isPositive();
+    }
+
+    @Test
+    void shouldKeepCallersApart() {
+        for (int i = 0; i < 3; i++) {
+            tokenBuckets.tryAcquire("harlik");
+        }
+        assertThat(tokenBuckets.tryAcquire("harlik")).isPositive();
+        assertThat(tokenBuckets.tryAcquire("alex")).isZero();
+    }
+}
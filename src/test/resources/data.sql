@@ -1,8 +1,8 @@
 INSERT INTO cash_card(ID, AMOUNT, OWNER)
-VALUES (123, 456.78, 'harlik');
+VALUES (123, 45678, 'harlik');
 INSERT INTO cash_card(ID, AMOUNT, OWNER)
-VALUES (124, 789.01, 'alex');
+VALUES (124, 78901, 'alex');
 INSERT INTO cash_card(ID, AMOUNT, OWNER)
-VALUES (125, 234.56, 'harlik');
+VALUES (125, 23456, 'harlik');
 INSERT INTO cash_card(ID, AMOUNT, OWNER)
-VALUES (126, 987.10, 'harlik');
\ No newline at end of file
+VALUES (126, 98710, 'harlik');
\ No newline at end of file